@@ -35,6 +35,8 @@ public abstract class BaseController {
     @ResponseBody
     @ExceptionHandler(Throwable.class)
     private Object handleException(Throwable t, HttpServletRequest request) {
+        request.setAttribute(WebMVC.REQUEST_ATTR_EXCEPTION, t);
+
         /**
          * If this.class is annotated by @RestController
          */
@@ -0,0 +1,478 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest;
+
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.mayanjun.core.Status;
+import org.mayanjun.myrest.util.JSON;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Result Object. Note that do not use 'code','msg' or 'desc' as a data key
+ * <p>
+ *     The well-known keys are stored in fields and other keys are stored in an overflow map
+ *     which is allocated only when {@link #add(String, Object)} or {@link #addAll(Map)} is used.
+ *     The value of 'code' must be a number.
+ * </p>
+ * <p>
+ *     A response can be pre-serialized by {@link #preSerialize()}, then the cached JSON is written as is
+ *     until the response is modified. This is meant for constant responses such as error statuses, so only responses
+ *     whose values are immutable can be pre-serialized. The cached JSON is only written by the mapper that produced it,
+ *     other mappers serialize the response as usual.
+ * </p>
+ * @author mayanjun
+ * @since 21/08/2017
+ */
+@JsonSerialize(using = RestResponseSerializer.class)
+public class RestResponse extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 2447431475391604522L;
+
+    public static final String CODE_KEY = "code";
+    public static final String MSG_KEY = "msg";
+    public static final String DESC_KEY = "desc";
+    public static final String DATA_KEY = "data";
+
+    static final int CODE = 1;
+    static final int MSG = 1 << 1;
+    static final int DESC = 1 << 2;
+    static final int DATA = 1 << 3;
+
+    /**
+     * Bits of the well-known keys present in this response
+     */
+    private int present;
+    private int code;
+    private Object message;
+    private Object description;
+    private Object data;
+    private Map<String, Object> extra;
+
+    private transient Set<Entry<String, Object>> entrySet;
+
+    /**
+     * Pre-serialized JSON, cleared on modification
+     */
+    private transient SerializableString body;
+
+    /**
+     * The codec produced {@link #body}
+     */
+    private transient ObjectCodec bodyCodec;
+
+    public RestResponse() {
+        this(0, "OK");
+    }
+
+    /**
+     * Copy constructor, the pre-serialized JSON is shared with the copy
+     * @param response response to copy
+     */
+    public RestResponse(RestResponse response) {
+        super();
+        this.present = response.present;
+        this.code = response.code;
+        this.message = response.message;
+        this.description = response.description;
+        this.data = response.data;
+        if (response.extra != null) this.extra = new HashMap<String, Object>(response.extra);
+        this.body = response.body;
+        this.bodyCodec = response.bodyCodec;
+    }
+
+    public RestResponse(int code, String message) {
+        super();
+        setStatus(code, message);
+    }
+
+    private void setStatus(int code, String message) {
+        this.body = null;
+        this.code = code;
+        this.message = message;
+        this.present |= CODE | MSG;
+    }
+
+    public static RestResponse ok() {
+        return new RestResponse(Status.OK);
+    }
+
+    public static RestResponse ok(Object data) {
+        return new RestResponse(Status.OK).setData(data);
+    }
+
+    public static RestResponse error() {
+        return new RestResponse(Status.INTERNAL_ERROR);
+    }
+
+    public static RestResponse error(Object data) {
+        return new RestResponse(Status.INTERNAL_ERROR).setData(data);
+    }
+
+    public RestResponse(Status status) {
+        super();
+        if(status != null) setStatus(status.getCode(), status.getMessage());
+    }
+
+    public RestResponse setData(Object object) {
+        this.body = null;
+        this.data = object;
+        this.present |= DATA;
+        return this;
+    }
+
+    public Object getData() {
+        return this.data;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public RestResponse setCode(int code) {
+        this.body = null;
+        this.code = code;
+        this.present |= CODE;
+        return this;
+    }
+
+    public String getMessage() {
+        if(message != null) return message.toString();
+        return null;
+    }
+
+    public RestResponse setMessage(String message) {
+        this.body = null;
+        this.message = message;
+        this.present |= MSG;
+        return this;
+    }
+
+    public RestResponse add(String key, Object value) {
+        put(key, value);
+        return this;
+    }
+
+    public RestResponse addAll(Map<? extends String, ?> m) {
+        putAll(m);
+        return this;
+    }
+
+
+    public RestResponse setDescription(String description) {
+        this.body = null;
+        this.description = description;
+        this.present |= DESC;
+        return this;
+    }
+
+    public String getDescription() {
+        if(description != null) return description.toString();
+        return null;
+    }
+
+    /**
+     * Serialize this response by the shared mapper of {@link JSON} now and cache the JSON,
+     * it is written as is by that mapper until this response is modified
+     * @return this
+     * @throws IllegalStateException if a value of this response is mutable, it would go stale in the cache
+     */
+    public RestResponse preSerialize() {
+        for (Entry<String, Object> e : entrySet()) {
+            if (!isImmutable(e.getValue())) {
+                throw new IllegalStateException("Only a response of immutable values can be pre-serialized: " + e.getKey());
+            }
+        }
+        this.body = null;
+        return preSerialize(JSON.mapper(), JSON.seBytes(this));
+    }
+
+    /**
+     * Cache the JSON of this response that is about to be written. The caller must not modify the values after this call
+     * @param codec the codec produced the JSON, the JSON is only written by this codec
+     * @param json JSON of this response, null to clear the cache
+     * @return this
+     */
+    public RestResponse preSerialize(ObjectCodec codec, String json) {
+        this.body = json == null ? null : new SerializedString(json);
+        this.bodyCodec = codec;
+        return this;
+    }
+
+    /**
+     * Cache the UTF-8 JSON of this response that is about to be written. The caller must not modify the values after this call,
+     * the array is kept without copying so it must not be modified either
+     * @param codec the codec produced the JSON, the JSON is only written by this codec
+     * @param json UTF-8 JSON of this response, null to clear the cache
+     * @return this
+     */
+    public RestResponse preSerialize(ObjectCodec codec, byte[] json) {
+        this.body = json == null ? null : new Utf8JsonString(json);
+        this.bodyCodec = codec;
+        return this;
+    }
+
+    /**
+     * Returns the cached JSON if it is produced by the codec
+     */
+    SerializableString preSerialized(ObjectCodec codec) {
+        SerializableString b = body;
+        return b != null && bodyCodec == codec ? b : null;
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value == null
+                || value instanceof String
+                || value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte
+                || value instanceof Double || value instanceof Float
+                || value instanceof BigInteger || value instanceof BigDecimal
+                || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum;
+    }
+
+    boolean has(int key) {
+        return (present & key) != 0;
+    }
+
+    Object rawMessage() {
+        return message;
+    }
+
+    Object rawDescription() {
+        return description;
+    }
+
+    Map<String, Object> extra() {
+        return extra;
+    }
+
+    private static int keyOf(Object key) {
+        if (CODE_KEY.equals(key)) return CODE;
+        if (MSG_KEY.equals(key)) return MSG;
+        if (DESC_KEY.equals(key)) return DESC;
+        if (DATA_KEY.equals(key)) return DATA;
+        return 0;
+    }
+
+    private Object fixedValue(int key) {
+        switch (key) {
+            case CODE: return code;
+            case MSG: return message;
+            case DESC: return description;
+            default: return data;
+        }
+    }
+
+    @Override
+    public Object get(Object key) {
+        int k = keyOf(key);
+        if (k != 0) return has(k) ? fixedValue(k) : null;
+        return extra == null ? null : extra.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int k = keyOf(key);
+        if (k != 0) return has(k);
+        return extra != null && extra.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        body = null;
+        int k = keyOf(key);
+        if (k == 0) {
+            if (extra == null) extra = new HashMap<String, Object>();
+            return extra.put(key, value);
+        }
+
+        Object old = has(k) ? fixedValue(k) : null;
+        switch (k) {
+            case CODE:
+                if (value == null) {
+                    remove(CODE_KEY);
+                    return old;
+                }
+                if (!(value instanceof Number)) throw new IllegalArgumentException("The value of 'code' must be a number: " + value);
+                code = ((Number) value).intValue();
+                break;
+            case MSG: message = value; break;
+            case DESC: description = value; break;
+            default: data = value;
+        }
+        present |= k;
+        return old;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> m) {
+        for (Entry<? extends String, ?> e : m.entrySet()) {
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        body = null;
+        int k = keyOf(key);
+        if (k == 0) return extra == null ? null : extra.remove(key);
+        if (!has(k)) return null;
+
+        Object old = fixedValue(k);
+        switch (k) {
+            case CODE: code = 0; break;
+            case MSG: message = null; break;
+            case DESC: description = null; break;
+            default: data = null;
+        }
+        present &= ~k;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return Integer.bitCount(present) + (extra == null ? 0 : extra.size());
+    }
+
+    @Override
+    public void clear() {
+        body = null;
+        present = 0;
+        code = 0;
+        message = null;
+        description = null;
+        data = null;
+        if (extra != null) extra.clear();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        Set<Entry<String, Object>> es = entrySet;
+        if (es == null) entrySet = es = new EntrySet();
+        return es;
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return RestResponse.this.size();
+        }
+
+        @Override
+        public void clear() {
+            RestResponse.this.clear();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private int next = CODE;
+        private Iterator<Entry<String, Object>> extraIterator;
+        private String lastKey;
+        private boolean lastFromExtra;
+
+        @Override
+        public boolean hasNext() {
+            while (next <= DATA) {
+                if (has(next)) return true;
+                next <<= 1;
+            }
+            if (extraIterator == null) {
+                if (extra == null) return false;
+                extraIterator = extra.entrySet().iterator();
+            }
+            return extraIterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            if (next <= DATA) {
+                int k = next;
+                next <<= 1;
+                lastKey = k == CODE ? CODE_KEY : (k == MSG ? MSG_KEY : (k == DESC ? DESC_KEY : DATA_KEY));
+                lastFromExtra = false;
+                return new FixedEntry(lastKey);
+            }
+            Entry<String, Object> e = extraIterator.next();
+            lastKey = e.getKey();
+            lastFromExtra = true;
+            return new ExtraEntry(e);
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) throw new IllegalStateException();
+            body = null;
+            if (lastFromExtra) extraIterator.remove();
+            else RestResponse.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    private final class FixedEntry extends SimpleEntry<String, Object> {
+
+        private static final long serialVersionUID = 6373498406412011869L;
+
+        FixedEntry(String key) {
+            super(key, get(key));
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            super.setValue(value);
+            return put(getKey(), value);
+        }
+    }
+
+    private final class ExtraEntry extends SimpleEntry<String, Object> {
+
+        private static final long serialVersionUID = -1838626553925768472L;
+
+        private final Entry<String, Object> entry;
+
+        ExtraEntry(Entry<String, Object> entry) {
+            super(entry);
+            this.entry = entry;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            body = null;
+            super.setValue(value);
+            return entry.setValue(value);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Serializer of {@link RestResponse}. It writes the well-known fields directly instead of going through
+ * the generic map serializer and produces the same JSON shape as a {@link java.util.HashMap} would.
+ * Null values are skipped when the mapper excludes null map contents.
+ * A pre-serialized response is written as raw JSON if the generator belongs to the mapper produced it,
+ * see {@link RestResponse#preSerialize()}.
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class RestResponseSerializer extends StdSerializer<RestResponse> implements ContextualSerializer {
+
+    private static final long serialVersionUID = -3516113318536787468L;
+
+    private final boolean suppressNulls;
+
+    public RestResponseSerializer() {
+        this(false);
+    }
+
+    private RestResponseSerializer(boolean suppressNulls) {
+        super(RestResponse.class);
+        this.suppressNulls = suppressNulls;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException {
+        JsonInclude.Include content = provider.getConfig().getDefaultPropertyInclusion(RestResponse.class).getContentInclusion();
+        boolean suppress = (content != null && content != JsonInclude.Include.ALWAYS && content != JsonInclude.Include.USE_DEFAULTS)
+                || !provider.isEnabled(SerializationFeature.WRITE_NULL_MAP_VALUES);
+        return suppress == suppressNulls ? this : new RestResponseSerializer(suppress);
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, RestResponse value) {
+        return value.isEmpty();
+    }
+
+    @Override
+    public void serialize(RestResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        SerializableString body = value.preSerialized(gen.getCodec());
+        if (body != null) {
+            gen.writeRawValue(body);
+            return;
+        }
+        gen.writeStartObject(value);
+        writeFields(value, gen, provider);
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(RestResponse value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+        gen.setCurrentValue(value);
+        WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(value, JsonToken.START_OBJECT));
+        writeFields(value, gen, provider);
+        typeSer.writeTypeSuffix(gen, typeId);
+    }
+
+    private void writeFields(RestResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (value.has(RestResponse.CODE)) {
+            gen.writeFieldName(RestResponse.CODE_KEY);
+            gen.writeNumber(value.getCode());
+        }
+        if (value.has(RestResponse.MSG)) writeField(RestResponse.MSG_KEY, value.rawMessage(), gen, provider);
+        if (value.has(RestResponse.DESC)) writeField(RestResponse.DESC_KEY, value.rawDescription(), gen, provider);
+        if (value.has(RestResponse.DATA)) writeField(RestResponse.DATA_KEY, value.getData(), gen, provider);
+
+        Map<String, Object> extra = value.extra();
+        if (extra != null && !extra.isEmpty()) {
+            for (Map.Entry<String, Object> e : extra.entrySet()) {
+                if (e.getKey() == null) throw JsonMappingException.from(gen, "Null key for a Map not allowed in JSON");
+                writeField(e.getKey(), e.getValue(), gen, provider);
+            }
+        }
+    }
+
+    private void writeField(String name, Object v, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (v == null) {
+            if (suppressNulls) return;
+            gen.writeFieldName(name);
+            gen.writeNull();
+        } else if (v instanceof String) {
+            gen.writeFieldName(name);
+            gen.writeString((String) v);
+        } else {
+            gen.writeFieldName(name);
+            provider.defaultSerializeValue(v, gen);
+        }
+    }
+}
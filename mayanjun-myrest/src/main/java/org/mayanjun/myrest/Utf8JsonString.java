@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.mayanjun.myrest;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pre-serialized JSON kept as UTF-8 bytes. Byte based generators copy the bytes as is,
+ * the text is decoded only if a char based generator asks for it.
+ * The array is shared with the callers of {@link #asUnquotedUTF8()}, which must not modify it.
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+final class Utf8JsonString implements SerializableString {
+
+    private final byte[] bytes;
+
+    private volatile SerializedString text;
+
+    Utf8JsonString(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    private SerializedString text() {
+        SerializedString t = text;
+        if (t == null) text = t = new SerializedString(new String(bytes, StandardCharsets.UTF_8));
+        return t;
+    }
+
+    @Override
+    public String getValue() {
+        return text().getValue();
+    }
+
+    @Override
+    public int charLength() {
+        return text().charLength();
+    }
+
+    @Override
+    public char[] asQuotedChars() {
+        return text().asQuotedChars();
+    }
+
+    @Override
+    public byte[] asUnquotedUTF8() {
+        return bytes;
+    }
+
+    @Override
+    public byte[] asQuotedUTF8() {
+        return text().asQuotedUTF8();
+    }
+
+    @Override
+    public int appendQuotedUTF8(byte[] buffer, int offset) {
+        return text().appendQuotedUTF8(buffer, offset);
+    }
+
+    @Override
+    public int appendQuoted(char[] buffer, int offset) {
+        return text().appendQuoted(buffer, offset);
+    }
+
+    @Override
+    public int appendUnquotedUTF8(byte[] buffer, int offset) {
+        if (offset + bytes.length > buffer.length) return -1;
+        System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+        return bytes.length;
+    }
+
+    @Override
+    public int appendUnquoted(char[] buffer, int offset) {
+        return text().appendUnquoted(buffer, offset);
+    }
+
+    @Override
+    public int writeQuotedUTF8(OutputStream out) throws IOException {
+        return text().writeQuotedUTF8(out);
+    }
+
+    @Override
+    public int writeUnquotedUTF8(OutputStream out) throws IOException {
+        out.write(bytes);
+        return bytes.length;
+    }
+
+    @Override
+    public int putQuotedUTF8(ByteBuffer buffer) throws IOException {
+        return text().putQuotedUTF8(buffer);
+    }
+
+    @Override
+    public int putUnquotedUTF8(ByteBuffer buffer) throws IOException {
+        if (bytes.length > buffer.remaining()) return -1;
+        buffer.put(bytes);
+        return bytes.length;
+    }
+
+    @Override
+    public String toString() {
+        return getValue();
+    }
+}
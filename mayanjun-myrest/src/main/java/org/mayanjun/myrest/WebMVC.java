@@ -27,6 +27,11 @@ public class WebMVC {
      */
     public static final String REQUEST_ATTR_HANDLER_METHOD = WebMVC.class.getName() + ".REQUEST_ATTR_HANDLER_METHOD";
 
+    /**
+     * Request attribute key to access the exception handled by {@link BaseController}
+     */
+    public static final String REQUEST_ATTR_EXCEPTION = WebMVC.class.getName() + ".REQUEST_ATTR_EXCEPTION";
+
     public static final String SERVLET_APPLICATION_CONTEXT_NAME = "org.springframework.web.servlet.FrameworkServlet.CONTEXT.dispatcher";
 
     public static boolean DEBUG = false;
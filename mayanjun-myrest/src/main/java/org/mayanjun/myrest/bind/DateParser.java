@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.bind;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+
+/**
+ * Thread-safe date parser used by {@link DatePropertyEditor}.
+ * <p>
+ *     The input is classified by its length and separator characters and parsed by the only
+ *     precompiled formatter that can match it, failures are reported through {@link ParsePosition}
+ *     instead of exceptions. Inputs that do not fit one of the strict shapes (e.g. out of range fields
+ *     or dates before the Gregorian cutover) fall back to the lenient {@link SimpleDateFormat} patterns
+ *     so the result is the same as before.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public final class DateParser {
+
+	private DateParser() {
+	}
+
+	static final String DATE_FORMATS[] = {
+			"yyyy-MM-dd HH:mm:ss",
+			"yyyy-MM-dd HH:mm",
+			"yyyy-MM-dd",
+			"yyyy/MM/dd HH:mm:ss",
+			"yyyy/MM/dd HH:mm",
+			"yyyy/MM/dd",
+			"yyyyMMdd HH:mm:ss",
+			"yyyyMMdd"
+	};
+
+	private static final DateTimeFormatter DASH_DATE_TIME = formatter('-', true, true);
+	private static final DateTimeFormatter DASH_DATE_MINUTE = formatter('-', true, false);
+	private static final DateTimeFormatter DASH_DATE = formatter('-', false, false);
+	private static final DateTimeFormatter SLASH_DATE_TIME = formatter('/', true, true);
+	private static final DateTimeFormatter SLASH_DATE_MINUTE = formatter('/', true, false);
+	private static final DateTimeFormatter SLASH_DATE = formatter('/', false, false);
+	private static final DateTimeFormatter BASIC_DATE_TIME = formatter((char) 0, true, true);
+	private static final DateTimeFormatter BASIC_DATE = formatter((char) 0, false, false);
+
+	/**
+	 * java.time uses the proleptic Gregorian calendar while SimpleDateFormat switches to Julian before the cutover
+	 */
+	private static final int MIN_STRICT_YEAR = 1583;
+
+	private static DateTimeFormatter formatter(char separator, boolean time, boolean seconds) {
+		DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder().appendValue(ChronoField.YEAR, 4);
+		if (separator != 0) builder.appendLiteral(separator);
+		builder.appendValue(ChronoField.MONTH_OF_YEAR, 2);
+		if (separator != 0) builder.appendLiteral(separator);
+		builder.appendValue(ChronoField.DAY_OF_MONTH, 2);
+		if (time) {
+			builder.appendLiteral(' ')
+					.appendValue(ChronoField.HOUR_OF_DAY, 2)
+					.appendLiteral(':')
+					.appendValue(ChronoField.MINUTE_OF_HOUR, 2);
+			if (seconds) builder.appendLiteral(':').appendValue(ChronoField.SECOND_OF_MINUTE, 2);
+		}
+		return builder.toFormatter();
+	}
+
+	/**
+	 * Parse the text in one of the supported formats
+	 * @param text date text
+	 * @return date or null if the text can not be parsed
+	 */
+	public static Date parse(String text) {
+		if (text == null) return null;
+		DateTimeFormatter formatter = classify(text);
+		if (formatter != null) {
+			ParsePosition pos = new ParsePosition(0);
+			TemporalAccessor parsed = formatter.parseUnresolved(text, pos);
+			if (parsed != null && pos.getErrorIndex() < 0 && pos.getIndex() == text.length()) {
+				Date date = toDate(parsed);
+				if (date != null) return date;
+			}
+		}
+		return parseLenient(text);
+	}
+
+	private static DateTimeFormatter classify(String text) {
+		int len = text.length();
+		if (len < 8) return null;
+		char c = text.charAt(4);
+		switch (len) {
+			case 8: return isDigit(c) ? BASIC_DATE : null;
+			case 10: return c == '-' ? DASH_DATE : (c == '/' ? SLASH_DATE : null);
+			case 16: return c == '-' ? DASH_DATE_MINUTE : (c == '/' ? SLASH_DATE_MINUTE : null);
+			case 17: return isDigit(c) ? BASIC_DATE_TIME : null;
+			case 19: return c == '-' ? DASH_DATE_TIME : (c == '/' ? SLASH_DATE_TIME : null);
+			default: return null;
+		}
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static Date toDate(TemporalAccessor parsed) {
+		int year = (int) parsed.getLong(ChronoField.YEAR);
+		int month = (int) parsed.getLong(ChronoField.MONTH_OF_YEAR);
+		int day = (int) parsed.getLong(ChronoField.DAY_OF_MONTH);
+		int hour = field(parsed, ChronoField.HOUR_OF_DAY);
+		int minute = field(parsed, ChronoField.MINUTE_OF_HOUR);
+		int second = field(parsed, ChronoField.SECOND_OF_MINUTE);
+
+		if (year < MIN_STRICT_YEAR || month < 1 || month > 12 || day < 1
+				|| day > Month.of(month).length(Year.isLeap(year))
+				|| hour > 23 || minute > 59 || second > 59) {
+			return null;
+		}
+
+		long millis = LocalDateTime.of(year, month, day, hour, minute, second)
+				.atZone(ZoneId.systemDefault())
+				// java.util.Calendar treats an ambiguous wall time as standard time
+				.withLaterOffsetAtOverlap()
+				.toInstant()
+				.toEpochMilli();
+		return new Date(millis);
+	}
+
+	private static int field(TemporalAccessor parsed, ChronoField field) {
+		return parsed.isSupported(field) ? (int) parsed.getLong(field) : 0;
+	}
+
+	private static Date parseLenient(String text) {
+		// rare path, formats are created per call so they always follow the current default time zone
+		for (String format : DATE_FORMATS) {
+			Date date = new SimpleDateFormat(format).parse(text, new ParsePosition(0));
+			if (date != null) return date;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.mayanjun.myrest.bulkhead;
+
+import org.mayanjun.myrest.interceptor.Interceptor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limit the number of concurrent requests of the annotated handler methods, so that a slow handler or
+ * a slow dependency can not occupy the whole servlet thread pool.
+ * Annotated on a controller class means each of its handler methods has its own limit.
+ * <p>
+ *     A request that can not get a permit waits up to {@link #maxWaitMillis()} if fewer than {@link #maxQueue()}
+ *     requests are waiting, otherwise it is rejected with {@link BulkheadInterceptor#REJECTED}, which
+ *     {@link org.mayanjun.myrest.interceptor.ApplicationExceptionHandler} maps to a response.
+ *     A permit is held until the request completes, including the async processing of the handler.
+ * </p>
+ * <div>
+ *     Current counters can be exported by {@link BulkheadRegistry#getBulkheads()}
+ * </div>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Documented
+@Interceptor(BulkheadInterceptor.class)
+public @interface Bulkhead {
+
+    /**
+     * Max concurrent requests of the handler method
+     * @return max concurrent requests, must be greater than 0
+     */
+    int maxConcurrent();
+
+    /**
+     * Max requests waiting for a permit. Requests are rejected immediately if 0
+     * @return max waiting requests
+     */
+    int maxQueue() default 0;
+
+    /**
+     * Max time in milliseconds a request waits for a permit before it is rejected
+     * @return max wait time
+     */
+    long maxWaitMillis() default 0;
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.mayanjun.myrest.bulkhead;
+
+import org.mayanjun.core.ServiceException;
+import org.mayanjun.core.Status;
+import org.mayanjun.myrest.interceptor.AnnotationBasedHandlerInterceptor;
+import org.springframework.core.Ordered;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Interceptor of {@link Bulkhead}. The acquired permits are kept in a request attribute as a stack, so a forward or
+ * include to another bulkhead handler acquires and releases its own permit. A permit is released in afterCompletion,
+ * the async dispatch of the same handler reuses the permit acquired by the first dispatch.
+ * At most one permit is acquired per handler of a dispatch, even if the annotation is present on both
+ * the class and the method.
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class BulkheadInterceptor extends AnnotationBasedHandlerInterceptor {
+
+    public static final Status REJECTED = new Status(2101, "服务繁忙，请稍后重试");
+
+    /**
+     * Request attribute key of the stack of permits the request holds, one per handler of a dispatch
+     */
+    public static final String REQUEST_ATTR_PERMITS = BulkheadInterceptor.class.getName() + ".PERMITS";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod)) return true;
+        Bulkhead bulkhead = findAnnotation(Bulkhead.class, request, handler);
+        if (bulkhead == null) return true;
+
+        HandlerMethod hm = (HandlerMethod) handler;
+        HandlerBulkhead hb = BulkheadRegistry.get(hm.getBeanType(), hm.getMethod(), bulkhead);
+        Deque<Permit> permits = getPermits(request, false);
+        if (permits != null && !permits.isEmpty()) {
+            Permit top = permits.peek();
+            // another copy of this interceptor has acquired the permit of this dispatch
+            if (top.handler == handler) return true;
+            // async dispatch, the permit is held since the first dispatch
+            if (top.bulkhead == hb && request.getDispatcherType() == DispatcherType.ASYNC) {
+                top.handler = handler;
+                return true;
+            }
+        }
+
+        if (!hb.tryAcquire()) throw new ServiceException(REJECTED);
+        if (permits == null) permits = getPermits(request, true);
+        permits.push(new Permit(handler, hb));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
+        Deque<Permit> permits = getPermits(request, false);
+        if (permits == null || permits.isEmpty() || permits.peek().handler != handler) return;
+
+        Permit permit = permits.pop();
+        if (permits.isEmpty()) request.removeAttribute(REQUEST_ATTR_PERMITS);
+        permit.bulkhead.release();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Deque<Permit> getPermits(HttpServletRequest request, boolean create) {
+        Object attr = request.getAttribute(REQUEST_ATTR_PERMITS);
+        if (attr instanceof Deque) return (Deque<Permit>) attr;
+        if (!create) return null;
+        Deque<Permit> permits = new ArrayDeque<Permit>(2);
+        request.setAttribute(REQUEST_ATTR_PERMITS, permits);
+        return permits;
+    }
+
+    /**
+     * A permit held by the handler of a dispatch
+     */
+    private static final class Permit {
+
+        Object handler;
+
+        final HandlerBulkhead bulkhead;
+
+        Permit(Object handler, HandlerBulkhead bulkhead) {
+            this.handler = handler;
+            this.bulkhead = bulkhead;
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.mayanjun.myrest.bulkhead;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link HandlerBulkhead}s of all handler methods. Bulkheads are kept per bean type and method,
+ * so a method inherited by several controllers has a bulkhead for each of them
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public final class BulkheadRegistry {
+
+    private static final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Method, HandlerBulkhead>> BULKHEADS =
+            new ConcurrentHashMap<Class<?>, ConcurrentHashMap<Method, HandlerBulkhead>>();
+
+    private BulkheadRegistry() {
+    }
+
+    /**
+     * Returns the bulkhead of the handler method, creates one by the annotation if absent
+     * @param beanType bean type
+     * @param method handler method
+     * @param bulkhead annotation
+     * @return bulkhead
+     */
+    static HandlerBulkhead get(Class<?> beanType, Method method, Bulkhead bulkhead) {
+        ConcurrentHashMap<Method, HandlerBulkhead> methods = BULKHEADS.get(beanType);
+        if (methods == null) methods = BULKHEADS.computeIfAbsent(beanType, t -> new ConcurrentHashMap<Method, HandlerBulkhead>());
+        HandlerBulkhead hb = methods.get(method);
+        if (hb == null) {
+            hb = methods.computeIfAbsent(method, m -> new HandlerBulkhead(beanType, m,
+                    bulkhead.maxConcurrent(), bulkhead.maxQueue(), bulkhead.maxWaitMillis()));
+        }
+        return hb;
+    }
+
+    /**
+     * Returns the bulkhead of the handler method
+     * @param beanType bean type
+     * @param method handler method
+     * @return bulkhead or null if the method has not been invoked
+     */
+    public static HandlerBulkhead get(Class<?> beanType, Method method) {
+        ConcurrentHashMap<Method, HandlerBulkhead> methods = BULKHEADS.get(beanType);
+        return methods == null ? null : methods.get(method);
+    }
+
+    /**
+     * Returns all bulkheads, counters are read live
+     * @return bulkheads
+     */
+    public static List<HandlerBulkhead> getBulkheads() {
+        List<HandlerBulkhead> bulkheads = new ArrayList<HandlerBulkhead>();
+        for (ConcurrentHashMap<Method, HandlerBulkhead> methods : BULKHEADS.values()) {
+            bulkheads.addAll(methods.values());
+        }
+        return bulkheads;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.mayanjun.myrest.bulkhead;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The bulkhead of a handler method
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public final class HandlerBulkhead {
+
+    private final Class<?> beanType;
+
+    private final Method method;
+
+    private final int maxConcurrent;
+
+    private final int maxQueue;
+
+    private final long maxWaitMillis;
+
+    private final Semaphore permits;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    HandlerBulkhead(Class<?> beanType, Method method, int maxConcurrent, int maxQueue, long maxWaitMillis) {
+        if (maxConcurrent <= 0) throw new IllegalArgumentException("maxConcurrent must be greater than 0: " + method);
+        this.beanType = beanType;
+        this.method = method;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Acquire a permit, waits up to maxWaitMillis if the queue is not full
+     * @return true if acquired
+     */
+    boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            accepted.increment();
+            return true;
+        }
+        if (maxQueue == 0 || maxWaitMillis == 0) {
+            rejected.increment();
+            return false;
+        }
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        try {
+            if (permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                accepted.increment();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queued.decrementAndGet();
+        }
+        rejected.increment();
+        return false;
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    public Class<?> getBeanType() {
+        return beanType;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * Returns the number of requests holding a permit
+     * @return in-flight requests
+     */
+    public int getInFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * Returns the number of requests waiting for a permit
+     * @return waiting requests
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "HandlerBulkhead{handler=" + beanType.getSimpleName() + "#" + method.getName() + ", inFlight=" + getInFlight() + ", queued=" + getQueued()
+                + ", accepted=" + getAccepted() + ", rejected=" + getRejected() + "}";
+    }
+}
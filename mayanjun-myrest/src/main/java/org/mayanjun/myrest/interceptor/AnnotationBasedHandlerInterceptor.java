@@ -20,10 +20,8 @@ import org.springframework.core.Ordered;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 
+import javax.servlet.http.HttpServletRequest;
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * A convenient implementation of {@link org.springframework.web.servlet.HandlerInterceptor}
@@ -33,36 +31,30 @@ import java.util.Map;
  */
 public abstract class AnnotationBasedHandlerInterceptor extends HandlerInterceptorAdapter implements Ordered {
 
-	private static final Map<Class<?>, Map<Class<? extends Annotation>, Annotation>> ANNO_CACHE =
-			new HashMap<Class<?>, Map<Class<? extends Annotation>, Annotation>>();
-
 	/**
-	 * Find the annotation on the target method or class in which it contains
+	 * Find the annotation on the target method, the class in which it contains or their meta-annotations.
+	 * The method wins if the annotation is present on both
 	 * @param annotationClass annotation class
 	 * @param handler handler method
 	 * @param <T> Annotation type to be found
-     * @return annotation instance
-     */
+	 * @return annotation instance
+	 * @see HandlerAnnotationIndex
+	 */
 	public <T extends Annotation> T findAnnotation(Class<T> annotationClass, Object handler) {
-		HandlerMethod hm = ((HandlerMethod) handler);
-		
-		Method method = hm.getMethod();
-		T anno = method.getAnnotation(annotationClass);
-		
-		if(anno == null) {
-			Class<?> c = hm.getBeanType();
-			Map<Class<? extends Annotation>, Annotation> map = ANNO_CACHE.get(c);
-			if(map == null) {
-				Annotation as[] = c.getAnnotations();
-				map = new HashMap<Class<? extends Annotation>, Annotation>();
-				for(Annotation a : as) map.put(a.annotationType(), a);
-				ANNO_CACHE.put(c, map);
-			}
-			//anno = c.getAnnotation(annotationClass);
-			//c.getAnnotations()
-			anno = (T) map.get(annotationClass);
-		}
-		return anno;
+		return HandlerAnnotationIndex.of((HandlerMethod) handler).get(annotationClass);
+	}
+
+	/**
+	 * Find the annotation through the {@link RequestHandlerContext} of the request, which is shared by
+	 * all interceptors of the request
+	 * @param annotationClass annotation class
+	 * @param request current request
+	 * @param handler handler method
+	 * @param <T> Annotation type to be found
+	 * @return annotation instance
+	 */
+	public <T extends Annotation> T findAnnotation(Class<T> annotationClass, HttpServletRequest request, Object handler) {
+		return RequestHandlerContext.of(request, (HandlerMethod) handler).findAnnotation(annotationClass);
 	}
 
 	/**
@@ -83,4 +75,16 @@ public abstract class AnnotationBasedHandlerInterceptor extends HandlerIntercept
 		}
 		return null;
 	}
+
+	/**
+	 * Cast type of the handler bean to specified interface type, the result is memoized for the request
+	 * @param interfaceClass the class be cast to
+	 * @param request current request
+	 * @param handler handler method
+	 * @param <T> the type be cast to
+	 * @return instance of T type
+	 */
+	public <T> T castBeanTo(Class<T> interfaceClass, HttpServletRequest request, Object handler) {
+		return RequestHandlerContext.of(request, (HandlerMethod) handler).castBeanTo(interfaceClass);
+	}
 }
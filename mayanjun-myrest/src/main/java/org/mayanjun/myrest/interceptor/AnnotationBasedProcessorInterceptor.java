@@ -0,0 +1,400 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.interceptor;
+
+import org.apache.commons.lang3.StringUtils;
+import org.mayanjun.myrest.WebMVC;
+import org.mayanjun.myrest.interceptor.InterceptorChain.Execution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An processor interceptor used to manage and execute interceptors are bound to an interceptor annotation that annotated by @{@link Interceptor}
+ * <p>
+ *     All of the interceptors managed by this can implements the {@link Ordered}. The order gets smaller, the execute time gets earlier.
+ * </p>
+ * <p style="color:red">
+ *     Note that an interceptor managed by AnnotationBasedProcessorInterceptor is treated as Singleton
+ *     so it must be stateless, otherwise may be at risk of thread-safe.
+ * </p>
+ * <p>
+ *     When a handler starts async processing (e.g. returns a {@code DeferredResult}, {@code Callable} or {@code CompletableFuture}),
+ *     the interceptors implementing {@link AsyncHandlerInterceptor} are notified in reverse order instead of
+ *     postHandle and afterCompletion, which are invoked after the async dispatch.
+ * </p>
+ * <p>
+ *     The conditions declared on {@link Interceptor} are evaluated once in preHandle. An interceptor whose conditions
+ *     do not match is skipped for the rest of the request, which is recorded in a request attribute.
+ *     The async dispatch of a request reuses the decisions of the first dispatch. A nested forward or include dispatch
+ *     records its own execution and restores the outer one when it completes.
+ * </p>
+ * <p>
+ *     Like Spring's {@code HandlerExecutionChain}, afterCompletion is only invoked on the interceptors whose preHandle
+ *     returned true, in reverse order. If an interceptor rejects the request or throws an exception in preHandle,
+ *     the interceptors before it are completed immediately.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.2(Jan 15, 2016)
+ */
+public abstract class AnnotationBasedProcessorInterceptor extends HandlerInterceptorAdapter
+        implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnnotationBasedProcessorInterceptor.class);
+
+    /**
+     * Sorted interceptor chain of each handler method per bean type, since class level annotations are read from the bean type.
+     * Chains are immutable once they are published
+     */
+    private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Method, InterceptorChain>> interceptorsCache;
+
+    /**
+     * Request attribute key of the {@link Execution} of the request, unique to this processor
+     */
+    private final String executionAttribute;
+
+    private volatile ApplicationContext applicationContext;
+
+    /**
+     * Constructor
+     */
+    public AnnotationBasedProcessorInterceptor() {
+        interceptorsCache = new ConcurrentHashMap<Class<?>, ConcurrentHashMap<Method, InterceptorChain>>();
+        executionAttribute = AnnotationBasedProcessorInterceptor.class.getName() + ".EXECUTION." + System.identityHashCode(this);
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        initialize(event.getApplicationContext());
+    }
+
+    /**
+     * Build the interceptor chains and the {@link HandlerAnnotationIndex}es of all handler methods registered in the {@link RequestMappingHandlerMapping}s
+     * of the specified context, so that nothing is resolved on the request path.
+     * This is called automatically if this interceptor is registered as a bean of the context.
+     * @param applicationContext the context contains the handler mappings
+     */
+    public void initialize(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+        Map<String, RequestMappingHandlerMapping> mappings =
+                BeanFactoryUtils.beansOfTypeIncludingAncestors(applicationContext, RequestMappingHandlerMapping.class);
+        int count = 0;
+        for (RequestMappingHandlerMapping mapping : mappings.values()) {
+            for (HandlerMethod hm : mapping.getHandlerMethods().values()) {
+                HandlerAnnotationIndex.of(hm);
+                resolveInterceptors(hm, null);
+                count++;
+            }
+        }
+        int chains = 0;
+        for (ConcurrentHashMap<Method, InterceptorChain> methods : interceptorsCache.values()) chains += methods.size();
+        LOG.info("Interceptor chains initialized: handlerMethods={}, chains={}", count, chains);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        InterceptorChain chain = getChain(request, handler);
+        if (chain.isEmpty()) return true;
+
+        HandlerInterceptor[] interceptors = chain.interceptors;
+        InterceptorCondition[] conditions = chain.conditions;
+        Object previous = request.getAttribute(executionAttribute);
+        boolean[] skipped = null;
+        if (request.getDispatcherType() == DispatcherType.ASYNC && previous instanceof Execution && ((Execution) previous).chain == chain) {
+            // the first dispatch started async processing and is replaced by this one,
+            // reuse its decisions so that preHandle and afterCompletion stay paired
+            Execution first = (Execution) previous;
+            previous = first.previous;
+            if (conditions != null) {
+                skipped = first.skipped;
+                conditions = null;
+            }
+        }
+        Execution execution = new Execution(handler, chain, previous);
+        execution.skipped = skipped;
+        request.setAttribute(executionAttribute, execution);
+
+        for (int i = 0; i < interceptors.length; i++) {
+            if (execution.skipped != null && execution.skipped[i]) continue;
+            if (conditions != null && conditions[i] != null && !conditions[i].matches(request)) {
+                if (execution.skipped == null) execution.skipped = new boolean[interceptors.length];
+                execution.skipped[i] = true;
+                continue;
+            }
+            boolean ret;
+            try {
+                ret = interceptors[i].preHandle(request, response, handler);
+            } catch (Exception e) {
+                unwind(request, response, handler, execution, e);
+                restore(request, execution);
+                throw e;
+            }
+            if (!ret) {
+                unwind(request, response, handler, execution, null);
+                restore(request, execution);
+                return false;
+            }
+            execution.executed = i;
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) throws Exception {
+        Execution execution = getExecution(request, handler);
+        if (execution == null) return;
+        HandlerInterceptor[] interceptors = execution.chain.interceptors;
+        boolean[] skipped = execution.skipped;
+
+        for (int i = 0; i <= execution.executed; i++) {
+            if (skipped == null || !skipped[i]) interceptors[i].postHandle(request, response, handler, modelAndView);
+        }
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        Execution execution = getExecution(request, handler);
+        if (execution == null) return;
+        HandlerInterceptor[] interceptors = execution.chain.interceptors;
+        boolean[] skipped = execution.skipped;
+
+        for (int i = execution.executed; i >= 0; i--) {
+            if (interceptors[i] instanceof AsyncHandlerInterceptor && (skipped == null || !skipped[i])) {
+                ((AsyncHandlerInterceptor) interceptors[i]).afterConcurrentHandlingStarted(request, response, handler);
+            }
+        }
+    }
+
+    /**
+     * Returns the execution recorded by preHandle. If there is none, all interceptors of the chain are treated as executed.
+     * Returns null if the chain is empty
+     */
+    private Execution getExecution(HttpServletRequest request, Object handler) {
+        Object attr = request.getAttribute(executionAttribute);
+        if (attr instanceof Execution && ((Execution) attr).handler == handler) return (Execution) attr;
+
+        InterceptorChain chain = getChain(null, handler);
+        return chain.isEmpty() ? null : chain.completed;
+    }
+
+    /**
+     * Put back the execution of the outer dispatch, if any
+     */
+    private void restore(HttpServletRequest request, Execution execution) {
+        if (request.getAttribute(executionAttribute) != execution) return;
+        if (execution.previous == null) request.removeAttribute(executionAttribute);
+        else request.setAttribute(executionAttribute, execution.previous);
+    }
+
+    /**
+     * Invoke afterCompletion of the executed interceptors in reverse order. An exception thrown by an interceptor
+     * is logged so that the rest are still invoked
+     */
+    private void unwind(HttpServletRequest request, HttpServletResponse response, Object handler, Execution execution, Exception ex) {
+        HandlerInterceptor[] interceptors = execution.chain.interceptors;
+        boolean[] skipped = execution.skipped;
+        int executed = execution.executed;
+        if (execution != execution.chain.completed) execution.executed = -1;
+
+        for (int i = executed; i >= 0; i--) {
+            if (skipped != null && skipped[i]) continue;
+            try {
+                interceptors[i].afterCompletion(request, response, handler, ex);
+            } catch (Throwable e) {
+                LOG.error("HandlerInterceptor.afterCompletion threw exception: " + interceptors[i].getClass().getName(), e);
+            }
+        }
+    }
+
+    private InterceptorChain getChain(HttpServletRequest request, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod m = ((HandlerMethod) handler);
+            if(request != null) request.setAttribute(WebMVC.REQUEST_ATTR_HANDLER_METHOD, m);
+
+            ConcurrentHashMap<Method, InterceptorChain> methods = this.interceptorsCache.get(m.getBeanType());
+            InterceptorChain chain = methods == null ? null : methods.get(m.getMethod());
+            if (chain == null) {
+                chain = resolveInterceptors(m, request);
+            }
+            return chain;
+        }
+        return InterceptorChain.EMPTY;
+    }
+
+    private InterceptorChain resolveInterceptors(final HandlerMethod hm, final HttpServletRequest request) {
+        // built outside of the map: creating an interceptor bean may reach this processor again
+        InterceptorChain chain = searchInterceptors(hm.getBeanType(), hm.getMethod(), request);
+        ConcurrentHashMap<Method, InterceptorChain> methods = this.interceptorsCache.get(hm.getBeanType());
+        if (methods == null) {
+            methods = this.interceptorsCache.computeIfAbsent(hm.getBeanType(), t -> new ConcurrentHashMap<Method, InterceptorChain>());
+        }
+        InterceptorChain prev = methods.putIfAbsent(hm.getMethod(), chain);
+        return prev == null ? chain : prev;
+    }
+
+    private InterceptorChain searchInterceptors(Class<?> c, Method m, HttpServletRequest request) {
+        // an annotation present on both the class and the method binds its interceptor once, the method one wins
+        List<Annotation> annos = new ArrayList<Annotation>();
+        for (Annotation anno : c.getAnnotations()) {
+            if (!m.isAnnotationPresent(anno.annotationType())) annos.add(anno);
+        }
+        annos.addAll(Arrays.asList(m.getAnnotations()));
+        List<Link> list = instantiateInterceptor(annos, request);
+
+        if (!CollectionUtils.isEmpty(list)) {
+            // sort
+            Collections.sort(list, new Comparator<Link>() {
+                @Override
+                public int compare(Link o1, Link o2) {
+                    int s1 = 0;
+                    int s2 = 0;
+                    if (o1.interceptor instanceof Ordered) s1 = ((Ordered) o1.interceptor).getOrder();
+                    if (o2.interceptor instanceof Ordered) s2 = ((Ordered) o2.interceptor).getOrder();
+                    return s1 < s2 ? -1 : (s1 > s2 ? 1 : 0);
+                }
+            });
+        }
+        LOG.info("sorted interceptor: " + m.getName() + ":" + list);
+
+        if (list.isEmpty()) return InterceptorChain.EMPTY;
+
+        // pirint log
+        String log = "handler interceptors: class=" + c.getSimpleName() + ", method=" + m + "[";
+        HandlerInterceptor interceptors[] = new HandlerInterceptor[list.size()];
+        InterceptorCondition conditions[] = new InterceptorCondition[list.size()];
+        for (int i = 0; i < interceptors.length; i++) {
+            Link link = list.get(i);
+            interceptors[i] = link.interceptor;
+            conditions[i] = link.condition;
+            log += link.interceptor.getClass().getCanonicalName() + (link.condition == null ? "" : link.condition) + ",";
+        }
+        LOG.info(log + "]");
+
+        return new InterceptorChain(interceptors, conditions);
+    }
+
+    private List<Link> instantiateInterceptor(List<Annotation> annos, HttpServletRequest request) {
+        List<Link> list = new ArrayList<Link>();
+        for (Annotation anno : annos) {
+            if (anno.annotationType().isAnnotationPresent(Interceptor.class)) {
+                Interceptor ince = anno.annotationType().getAnnotation(Interceptor.class);
+                Class<? extends HandlerInterceptor> cls = ince.value();
+                HandlerInterceptor inc = null;
+                String from = "new";
+                String by = "class";
+                if (ince.loadFromContainer()) {
+                    Object incObj = null;
+                    String beanId = ince.beanId();
+                    ApplicationContext applicationContext = findApplicationContext(request);
+                    if(applicationContext == null) {
+                        LOG.warn("No application context found, can not load interceptor from IOC: class=" + cls);
+                    } else if(StringUtils.isNotBlank(beanId)) {
+                        try {
+                            incObj = applicationContext.getBean(beanId);
+                            by = "name";
+                        } catch (Exception e) {
+                            LOG.warn("Load interceptor from IOC by name failed: beanId=" + beanId);
+                        }
+                    }
+                    if(incObj == null && applicationContext != null) {
+                        LOG.info("Attempt to load interceptor bean from IOC by class: {}", cls);
+                        try {
+                            incObj = applicationContext.getBean(cls);
+                        } catch (Exception e) {
+                            LOG.warn("Load interceptor from IOC by class failed: class=" + cls);
+                        }
+                    }
+                    inc = (HandlerInterceptor) incObj;
+                    from = "spring";
+                } else {
+                    try {
+                        inc = cls.newInstance();
+                    } catch (InstantiationException e) {
+                        e.printStackTrace();
+                    } catch (IllegalAccessException e) {
+                        e.printStackTrace();
+                    }
+                }
+                if (inc != null) {
+                    list.add(new Link(inc, InterceptorCondition.compile(ince)));
+                    LOG.info("Interceptor instantiated: " + inc.getClass().getCanonicalName() + (", from="+ from + ", by=" + by));
+                }
+            }
+        }
+        return list;
+    }
+
+    private ApplicationContext findApplicationContext(HttpServletRequest request) {
+        ApplicationContext context = null;
+        if (request != null) context = getApplicationContext(request);
+        if (context == null) context = this.applicationContext;
+        return context;
+    }
+
+    protected ApplicationContext getApplicationContext(HttpServletRequest request) {
+        return (ApplicationContext)request.getSession().getServletContext().getAttribute(WebMVC.SERVLET_APPLICATION_CONTEXT_NAME);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) throws Exception {
+        Execution execution = getExecution(request, handler);
+        if (execution == null) return;
+        unwind(request, response, handler, execution, ex);
+        restore(request, execution);
+    }
+
+    /**
+     * An interceptor and its condition
+     */
+    private static final class Link {
+
+        final HandlerInterceptor interceptor;
+
+        final InterceptorCondition condition;
+
+        Link(HandlerInterceptor interceptor, InterceptorCondition condition) {
+            this.interceptor = interceptor;
+            this.condition = condition;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(interceptor);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.interceptor;
+
+import org.apache.commons.lang3.StringUtils;
+import org.mayanjun.core.ServiceException;
+import org.mayanjun.core.Status;
+import org.mayanjun.myrest.RestResponse;
+import org.mayanjun.myrest.WebMVC;
+import org.mayanjun.myrest.bulkhead.BulkheadInterceptor;
+import org.mayanjun.myrest.session.AbstractSession;
+import org.mayanjun.myrest.util.JSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.validation.BindException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Handle some exception
+ * <p>
+ *     Exceptions are handled by the {@link ExceptionResolver} registered for the nearest superclass,
+ *     the lookup is done once per exception class. Responses of the statuses registered by
+ *     {@link #registerConstantStatus(Status)} are serialized once and copied for each exception.
+ * </p>
+ * @author mayanjun
+ * @since 1.0.1
+ */
+public class ApplicationExceptionHandler {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(ApplicationExceptionHandler.class);
+
+	private static final String SERVICE_EXCEPTION_CLASSNAME = ServiceException.class.getName();
+
+	private static volatile UnknownExceptionHandler UNKNOWN_EXCEPTION_HANDLER;
+
+	private static final ErrorLogSampler.Reporter SUPPRESSED_LOG_REPORTER = (type, code, suppressed) ->
+			LOG.warn("Error Log Suppressed: {} code={}, suppressed={}", type.getCanonicalName(), code, suppressed);
+
+	private static volatile ErrorLogSampler ERROR_LOG_SAMPLER = newErrorLogSampler();
+
+	private static final ConcurrentHashMap<Class<?>, Registration> REGISTRATIONS = new ConcurrentHashMap<Class<?>, Registration>();
+
+	private static volatile ClassValue<Registration> RESOLVED_REGISTRATIONS;
+
+	/**
+	 * Pre-serialized responses of constant statuses, code -> response
+	 */
+	private static final ConcurrentHashMap<Integer, RestResponse> CONSTANT_RESPONSES = new ConcurrentHashMap<Integer, RestResponse>();
+
+	static {
+		registerExceptionResolver(Throwable.class, ApplicationExceptionHandler::handleUnknownException);
+		registerExceptionResolver(RuntimeException.class, ApplicationExceptionHandler::handleSCFServiceException);
+		registerExceptionResolver(ServiceException.class, ApplicationExceptionHandler::handleInternalServiceException, false);
+		registerExceptionResolver(MethodArgumentTypeMismatchException.class, t ->
+				new RestResponse(Status.PARAM_MISS.getCode(), "参数错误:" + ((MethodArgumentTypeMismatchException) t).getName()));
+		registerExceptionResolver(BindException.class, t ->
+				new RestResponse(Status.PARAM_MISS.getCode(), "参数错误:" + ((BindException) t).getFieldError().getField()));
+		registerExceptionResolver(MissingServletRequestParameterException.class, t ->
+				new RestResponse(Status.PARAM_MISS.getCode(), "缺少参数" + ((MissingServletRequestParameterException) t).getParameterName()));
+
+		registerConstantStatus(Status.INTERNAL_ERROR);
+		registerConstantStatus(Status.PARAM_MISS);
+		registerConstantStatus(Status.PARAM_ERROR);
+		registerConstantStatus(AbstractSession.NO_SIGN_IN);
+		registerConstantStatus(AbstractSession.USERNAME_OR_PASSWORD_INCORRECT);
+		registerConstantStatus(BulkheadInterceptor.REJECTED);
+	}
+
+    public static RestResponse handleAllException(Throwable t) {
+		Registration registration = RESOLVED_REGISTRATIONS.get(t.getClass());
+		RestResponse response = registration.resolver.resolve(t);
+		if(response == null) return RestResponse.error().setDescription(t.getMessage());
+		if(WebMVC.DEBUG && registration.describe) response.setDescription(t.getMessage());
+		return response;
+    }
+
+	private static RestResponse handleSCFServiceException(Throwable t) {
+		String message = t.getMessage();
+		if(message != null && message.startsWith(SERVICE_EXCEPTION_CLASSNAME)) {
+			int end = message.length();
+			for(int i = SERVICE_EXCEPTION_CLASSNAME.length(); i < end; i++) {
+				char c = message.charAt(i);
+				if(c == '\r' || c == '\n') {
+					end = i;
+					break;
+				}
+			}
+			int colon = message.indexOf(':');
+			String msg = message.substring(colon < 0 || colon >= end ? 0 : colon + 1, end);
+			if(!StringUtils.isBlank(msg)) msg = msg.trim();
+			else msg = "操作失败";
+			return handleInternalServiceException(new ServiceException(Status.INTERNAL_ERROR, msg));
+		}
+		return handleUnknownException(t);
+	}
+
+	private static RestResponse handleInternalServiceException(Throwable t) {
+		ServiceException st = (ServiceException)t;
+		if(LOG.isInfoEnabled()) {
+			int code = st.getStatus().getCode();
+			long suppressed = ERROR_LOG_SAMPLER.tryAcquire(t.getClass(), code);
+			if(suppressed != ErrorLogSampler.SUPPRESSED) {
+				LOG.info("Service Exception Detected: code={}, message={}, log={}, data={}, suppressed={}", code, st.getMessage(), st.getLog(), new LazyJSON(st.getHolder()), suppressed);
+			}
+		}
+		RestResponse re = newResponse(st.getStatus());
+
+		if(st.getHolder() != null) re.putAll(st.getHolder());
+		return re;
+	}
+
+	private static RestResponse handleUnknownException(Throwable t) {
+		long suppressed = ERROR_LOG_SAMPLER.tryAcquire(t.getClass(), Status.INTERNAL_ERROR.getCode());
+		if(suppressed != ErrorLogSampler.SUPPRESSED) {
+			LOG.error("Error Detected: {} > {}, suppressed={}", t.getClass().getCanonicalName(), t.getMessage(), suppressed, t);
+		}
+		try {
+			if(UNKNOWN_EXCEPTION_HANDLER != null) return UNKNOWN_EXCEPTION_HANDLER.handleException(t);
+		} catch (Throwable e) {
+			return newResponse(Status.INTERNAL_ERROR);
+		}
+		return newResponse(Status.INTERNAL_ERROR);
+	}
+
+	/**
+	 * Returns a response of the status, the pre-serialized JSON is reused if the status is registered as a constant status
+	 * @param status status
+	 * @return a new response
+	 */
+	public static RestResponse newResponse(Status status) {
+		RestResponse template = status == null ? null : CONSTANT_RESPONSES.get(status.getCode());
+		if(template != null && StringUtils.equals(template.getMessage(), status.getMessage())) return new RestResponse(template);
+		return new RestResponse(status);
+	}
+
+	/**
+	 * Register a status whose response never changes, its JSON is serialized once
+	 * @param status status
+	 */
+	public static void registerConstantStatus(Status status) {
+		if(status == null) return;
+		CONSTANT_RESPONSES.put(status.getCode(), new RestResponse(status).preSerialize());
+	}
+
+	/**
+	 * 注册异常处理器，处理该类型及其子类异常，DEBUG模式下异常信息设置到desc中
+	 * @param type exception type
+	 * @param resolver resolver
+	 */
+	public static void registerExceptionResolver(Class<? extends Throwable> type, ExceptionResolver resolver) {
+		registerExceptionResolver(type, resolver, true);
+	}
+
+	/**
+	 * 注册异常处理器，处理该类型及其子类异常
+	 * @param type exception type
+	 * @param resolver resolver
+	 * @param describe whether to set exception message as description in DEBUG mode
+	 */
+	public static synchronized void registerExceptionResolver(Class<? extends Throwable> type, ExceptionResolver resolver, boolean describe) {
+		REGISTRATIONS.put(type, new Registration(resolver, describe));
+		// resolved registrations are recomputed against the new registry
+		RESOLVED_REGISTRATIONS = new ClassValue<Registration>() {
+			@Override
+			protected Registration computeValue(Class<?> type) {
+				for(Class<?> c = type; c != null; c = c.getSuperclass()) {
+					Registration registration = REGISTRATIONS.get(c);
+					if(registration != null) return registration;
+				}
+				return REGISTRATIONS.get(Throwable.class);
+			}
+		};
+	}
+
+	/**
+	 * 安装未知异常处理器
+	 * @param handler
+	 */
+	public static void installUnknownExceptionHandler(UnknownExceptionHandler handler) {
+    	UNKNOWN_EXCEPTION_HANDLER = handler;
+	}
+
+	/**
+	 * 安装错误日志采样器，控制每种异常每秒输出的日志条数
+	 * @param sampler sampler
+	 */
+	public static void installErrorLogSampler(ErrorLogSampler sampler) {
+		if(sampler == null) return;
+		if(sampler.getReporter() == null) sampler.setReporter(SUPPRESSED_LOG_REPORTER);
+		ErrorLogSampler previous = ERROR_LOG_SAMPLER;
+		ERROR_LOG_SAMPLER = sampler;
+		if(previous != sampler) previous.shutdown();
+	}
+
+	private static ErrorLogSampler newErrorLogSampler() {
+		ErrorLogSampler sampler = new ErrorLogSampler();
+		sampler.setReporter(SUPPRESSED_LOG_REPORTER);
+		return sampler;
+	}
+
+	public static ErrorLogSampler getErrorLogSampler() {
+		return ERROR_LOG_SAMPLER;
+	}
+
+	/**
+	 * 用户自定义的未知异常处理器
+	 */
+	public static interface UnknownExceptionHandler {
+		RestResponse handleException(Throwable t);
+	}
+
+	/**
+	 * 异常处理器
+	 */
+	public static interface ExceptionResolver {
+		RestResponse resolve(Throwable t);
+	}
+
+	/**
+	 * Serialize the object only when the log record is actually written
+	 */
+	private static final class LazyJSON {
+		final Object object;
+
+		LazyJSON(Object object) {
+			this.object = object;
+		}
+
+		@Override
+		public String toString() {
+			return JSON.se(object);
+		}
+	}
+
+	private static final class Registration {
+		final ExceptionResolver resolver;
+		final boolean describe;
+
+		Registration(ExceptionResolver resolver, boolean describe) {
+			this.resolver = resolver;
+			this.describe = describe;
+		}
+	}
+}
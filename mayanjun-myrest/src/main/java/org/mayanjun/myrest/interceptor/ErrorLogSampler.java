@@ -0,0 +1,262 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.interceptor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate limit error logs per (exception class, status code).
+ * <p>
+ *     Each key is a token bucket implemented as GCRA: {@code permitsPerSecond} records are allowed per second
+ *     with bursts of up to {@code burst} records. Occurrences beyond that are counted but not logged, and the count
+ *     is reported with the next record of the same key, so an error storm produces a summary every
+ *     {@code 1 / permitsPerSecond} seconds.
+ *     When a {@link Reporter} is set, counts that no later record picks up (the storm stopped) are flushed to it
+ *     by a daemon thread once the key's window has rolled over.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class ErrorLogSampler {
+
+    public static final double DEFAULT_PERMITS_PER_SECOND = 1;
+    public static final int DEFAULT_BURST = 5;
+
+    /**
+     * Returned by {@link #tryAcquire(Class, int)} when the record should not be logged, never a valid count
+     */
+    public static final long SUPPRESSED = Long.MIN_VALUE;
+
+    private final long intervalNanos;
+
+    private final long toleranceNanos;
+
+    private final ConcurrentHashMap<Key, Bucket> buckets = new ConcurrentHashMap<Key, Bucket>();
+
+    private volatile Reporter reporter;
+
+    private final AtomicReference<ScheduledExecutorService> flusher = new AtomicReference<ScheduledExecutorService>();
+
+    public ErrorLogSampler() {
+        this(DEFAULT_PERMITS_PER_SECOND, DEFAULT_BURST);
+    }
+
+    /**
+     * Constructor
+     * @param permitsPerSecond records logged per second of each key, 0 or negative means no limit
+     * @param burst max records logged at once
+     */
+    public ErrorLogSampler(double permitsPerSecond, int burst) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        this.toleranceNanos = intervalNanos * Math.max(1, burst);
+    }
+
+    /**
+     * Try to log a record
+     * @param type exception type
+     * @param code status code
+     * @return {@link #SUPPRESSED} if the record should not be logged,
+     * otherwise the number of records suppressed since the last record of the same key
+     */
+    public long tryAcquire(Class<?> type, int code) {
+        Key key = new Key(type, code);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) bucket = buckets.computeIfAbsent(key, k -> new Bucket());
+
+        if (intervalNanos > 0) {
+            long now = System.nanoTime();
+            for (;;) {
+                long tat = bucket.theoreticalArrival.get();
+                long newTat = (tat - now < 0 ? now : tat) + intervalNanos;
+                if (newTat - now > toleranceNanos) {
+                    bucket.suppressed.increment();
+                    bucket.unreported.incrementAndGet();
+                    if (reporter != null && flusher.get() == null) startFlusher();
+                    return SUPPRESSED;
+                }
+                if (bucket.theoreticalArrival.compareAndSet(tat, newTat)) break;
+            }
+        }
+        bucket.logged.increment();
+        return bucket.unreported.getAndSet(0);
+    }
+
+    /**
+     * Report the suppressed counts of keys whose window has rolled over without a logged record picking them up
+     */
+    public void flush() {
+        Reporter reporter = this.reporter;
+        if (reporter == null) return;
+        long now = System.nanoTime();
+        for (Map.Entry<Key, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            // a record arriving now would be logged, so the storm is over
+            if (bucket.unreported.get() == 0 || bucket.theoreticalArrival.get() - now > toleranceNanos - intervalNanos) continue;
+            long suppressed = bucket.unreported.getAndSet(0);
+            if (suppressed > 0) {
+                Key key = entry.getKey();
+                reporter.report(key.type, key.code, suppressed);
+            }
+        }
+    }
+
+    private void startFlusher() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "error-log-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!flusher.compareAndSet(null, executor)) {
+            executor.shutdown();
+            return;
+        }
+        long period = Math.max(intervalNanos, TimeUnit.SECONDS.toNanos(1));
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Throwable e) {
+                // keep flushing, the reporter is responsible for its own errors
+            }
+        }, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stop the flushing thread after reporting all pending counts
+     */
+    public void shutdown() {
+        ScheduledExecutorService executor = flusher.getAndSet(null);
+        if (executor != null) executor.shutdown();
+        Reporter reporter = this.reporter;
+        if (reporter == null) return;
+        for (Map.Entry<Key, Bucket> entry : buckets.entrySet()) {
+            long suppressed = entry.getValue().unreported.getAndSet(0);
+            if (suppressed > 0) reporter.report(entry.getKey().type, entry.getKey().code, suppressed);
+        }
+    }
+
+    public Reporter getReporter() {
+        return reporter;
+    }
+
+    /**
+     * Set the receiver of suppressed counts that are not reported with a later record
+     * @param reporter reporter, null to disable flushing
+     */
+    public void setReporter(Reporter reporter) {
+        this.reporter = reporter;
+    }
+
+    /**
+     * Returns counters of all keys
+     * @return "exception class#status code" -> stats
+     */
+    public Map<String, Stats> getStats() {
+        Map<String, Stats> stats = new HashMap<String, Stats>(buckets.size() * 2);
+        for (Map.Entry<Key, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            stats.put(entry.getKey().toString(), new Stats(bucket.logged.sum(), bucket.suppressed.sum()));
+        }
+        return stats;
+    }
+
+    /**
+     * Remove all keys and their counters
+     */
+    public void reset() {
+        buckets.clear();
+    }
+
+    /**
+     * Receives the number of records suppressed for a key when no later record of the key reports it
+     */
+    public interface Reporter {
+        void report(Class<?> type, int code, long suppressed);
+    }
+
+    public static class Stats {
+
+        private final long logged;
+        private final long suppressed;
+
+        public Stats(long logged, long suppressed) {
+            this.logged = logged;
+            this.suppressed = suppressed;
+        }
+
+        public long getOccurrences() {
+            return logged + suppressed;
+        }
+
+        public long getLogged() {
+            return logged;
+        }
+
+        public long getSuppressed() {
+            return suppressed;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{logged=" + logged + ", suppressed=" + suppressed + "}";
+        }
+    }
+
+    private static final class Bucket {
+        final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+        final LongAdder logged = new LongAdder();
+        final LongAdder suppressed = new LongAdder();
+        // suppressed since the last record or flush that reported them
+        final AtomicLong unreported = new AtomicLong();
+    }
+
+    private static final class Key {
+        final Class<?> type;
+        final int code;
+
+        Key(Class<?> type, int code) {
+            this.type = type;
+            this.code = code;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return code == key.code && type == key.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + code;
+        }
+
+        @Override
+        public String toString() {
+            return type.getName() + "#" + code;
+        }
+    }
+}
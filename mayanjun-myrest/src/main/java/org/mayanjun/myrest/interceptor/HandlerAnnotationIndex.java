@@ -0,0 +1,172 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.mayanjun.myrest.interceptor;
+
+import org.springframework.web.method.HandlerMethod;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable index of the annotations of a handler method.
+ * <p>
+ *     The index merges, in order of precedence, the annotations of the method, the annotations of the bean class,
+ *     its superclasses and interfaces, and at each level the meta-annotations of those annotations.
+ *     The nearest one wins when an annotation type appears more than once.
+ * </p>
+ * <p>
+ *     Indexes are built once per (bean type, method) and published through concurrent maps, so a lookup on the
+ *     request path is a map read and a scan over a small array. {@link AnnotationBasedProcessorInterceptor}
+ *     builds the indexes of all handler methods at startup, others are built on first use.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public final class HandlerAnnotationIndex {
+
+    private static final ClassValue<ConcurrentHashMap<Method, HandlerAnnotationIndex>> INDEXES =
+            new ClassValue<ConcurrentHashMap<Method, HandlerAnnotationIndex>>() {
+                @Override
+                protected ConcurrentHashMap<Method, HandlerAnnotationIndex> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<Method, HandlerAnnotationIndex>();
+                }
+            };
+
+    private final Class<?>[] types;
+
+    private final Annotation[] annotations;
+
+    private HandlerAnnotationIndex(Map<Class<? extends Annotation>, Annotation> merged) {
+        this.types = merged.keySet().toArray(new Class<?>[merged.size()]);
+        this.annotations = merged.values().toArray(new Annotation[merged.size()]);
+    }
+
+    /**
+     * Returns the index of the handler method
+     * @param handlerMethod handler method
+     * @return index
+     */
+    public static HandlerAnnotationIndex of(HandlerMethod handlerMethod) {
+        return of(handlerMethod.getBeanType(), handlerMethod.getMethod());
+    }
+
+    /**
+     * Returns the index of the method invoked on the bean type. The bean type matters because a method
+     * declared in a base controller is indexed with the class annotations of each subclass
+     * @param beanType bean type
+     * @param method handler method
+     * @return index
+     */
+    public static HandlerAnnotationIndex of(Class<?> beanType, Method method) {
+        ConcurrentHashMap<Method, HandlerAnnotationIndex> indexes = INDEXES.get(beanType);
+        HandlerAnnotationIndex index = indexes.get(method);
+        if (index == null) {
+            index = build(beanType, method);
+            HandlerAnnotationIndex prev = indexes.putIfAbsent(method, index);
+            if (prev != null) index = prev;
+        }
+        return index;
+    }
+
+    private static HandlerAnnotationIndex build(Class<?> beanType, Method method) {
+        Map<Class<? extends Annotation>, Annotation> merged = new LinkedHashMap<Class<? extends Annotation>, Annotation>();
+        merge(method.getAnnotations(), merged);
+
+        List<Class<?>> interfaces = new ArrayList<Class<?>>();
+        for (Class<?> c = beanType; c != null && c != Object.class; c = c.getSuperclass()) {
+            merge(c.getDeclaredAnnotations(), merged);
+            for (Class<?> i : c.getInterfaces()) collectInterfaces(i, interfaces);
+        }
+        for (Class<?> i : interfaces) merge(i.getDeclaredAnnotations(), merged);
+        return new HandlerAnnotationIndex(merged);
+    }
+
+    private static void collectInterfaces(Class<?> i, List<Class<?>> interfaces) {
+        if (interfaces.contains(i)) return;
+        interfaces.add(i);
+        for (Class<?> s : i.getInterfaces()) collectInterfaces(s, interfaces);
+    }
+
+    /**
+     * Add the annotations, then their meta-annotations breadth first
+     */
+    private static void merge(Annotation[] annos, Map<Class<? extends Annotation>, Annotation> merged) {
+        List<Annotation> level = new ArrayList<Annotation>();
+        for (Annotation a : annos) {
+            if (!merged.containsKey(a.annotationType())) {
+                merged.put(a.annotationType(), a);
+                level.add(a);
+            }
+        }
+        while (!level.isEmpty()) {
+            List<Annotation> next = new ArrayList<Annotation>();
+            for (Annotation a : level) {
+                for (Annotation meta : a.annotationType().getDeclaredAnnotations()) {
+                    Class<? extends Annotation> type = meta.annotationType();
+                    if (type.getName().startsWith("java.lang.annotation.") || merged.containsKey(type)) continue;
+                    merged.put(type, meta);
+                    next.add(meta);
+                }
+            }
+            level = next;
+        }
+    }
+
+    /**
+     * Returns the nearest annotation of the type
+     * @param type annotation type
+     * @param <T> annotation type
+     * @return annotation or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Annotation> T get(Class<T> type) {
+        Class<?>[] types = this.types;
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == type) return (T) annotations[i];
+        }
+        return null;
+    }
+
+    public boolean has(Class<? extends Annotation> type) {
+        return get(type) != null;
+    }
+
+    public Annotation[] getAnnotations() {
+        return annotations.clone();
+    }
+
+    public int size() {
+        return annotations.length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("HandlerAnnotationIndex[");
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(types[i].getSimpleName());
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -33,6 +33,12 @@ import java.lang.annotation.*;
  *     }
  *     </pre>
  * </div>
+ * <p>
+ *     The interceptor can be restricted to some requests by {@link #methods()}, {@link #paths()}, {@link #headers()}
+ *     and {@link #sampleRate()}. All of the specified conditions must match, otherwise none of preHandle, postHandle
+ *     and afterCompletion of the interceptor is invoked for the request. The conditions are compiled once
+ *     per handler by {@link AnnotationBasedProcessorInterceptor}.
+ * </p>
  *
  * @author mayanjun
  * @since 0.0.2(Jan 15, 2016)
@@ -60,4 +66,29 @@ public @interface Interceptor {
 	 * @return interceptor beanId defined in IOC container
      */
 	String beanId() default "";
+
+	/**
+	 * HTTP methods the interceptor applies to, e.g. "POST". Applies to all methods if empty
+	 * @return HTTP methods
+	 */
+	String[] methods() default {};
+
+	/**
+	 * Ant style patterns of the path within the handler mapping the interceptor applies to. Applies to all paths if empty
+	 * @return path patterns
+	 */
+	String[] paths() default {};
+
+	/**
+	 * Header expressions that must all match, in the same form as {@code RequestMapping#headers()}:
+	 * "name" (present), "!name" (absent), "name=value" or "name!=value"
+	 * @return header expressions
+	 */
+	String[] headers() default {};
+
+	/**
+	 * The fraction of the matched requests the interceptor applies to, between 0 and 1
+	 * @return sample rate
+	 */
+	double sampleRate() default 1;
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.mayanjun.myrest.interceptor;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * The sorted and immutable interceptor chain of a handler method
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+final class InterceptorChain {
+
+    static final InterceptorChain EMPTY = new InterceptorChain(new HandlerInterceptor[0], new InterceptorCondition[0]);
+
+    final HandlerInterceptor[] interceptors;
+
+    /**
+     * Condition of each interceptor, null if none of the interceptors is conditional
+     */
+    final InterceptorCondition[] conditions;
+
+    /**
+     * Shared execution of a request whose preHandle was not recorded, all interceptors are treated as executed.
+     * It must never be modified
+     */
+    final Execution completed;
+
+    InterceptorChain(HandlerInterceptor[] interceptors, InterceptorCondition[] conditions) {
+        this.interceptors = interceptors;
+        InterceptorCondition[] c = null;
+        for (InterceptorCondition condition : conditions) {
+            if (condition != null) {
+                c = conditions;
+                break;
+            }
+        }
+        this.conditions = c;
+        this.completed = new Execution(null, this, null);
+        this.completed.executed = interceptors.length - 1;
+    }
+
+    boolean isEmpty() {
+        return interceptors.length == 0;
+    }
+
+    /**
+     * Interceptor execution state of the chain in a dispatch of a request
+     */
+    static final class Execution {
+
+        final Object handler;
+
+        final InterceptorChain chain;
+
+        /**
+         * The request attribute replaced by this execution, restored when the dispatch completes
+         */
+        final Object previous;
+
+        /**
+         * Interceptors skipped by their conditions, null if none
+         */
+        boolean[] skipped;
+
+        /**
+         * Index of the last interceptor whose preHandle returned true, -1 if none
+         */
+        int executed = -1;
+
+        Execution(Object handler, InterceptorChain chain, Object previous) {
+            this.handler = handler;
+            this.chain = chain;
+            this.previous = previous;
+        }
+    }
+}
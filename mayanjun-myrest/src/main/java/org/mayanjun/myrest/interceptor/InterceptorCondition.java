@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.mayanjun.myrest.interceptor;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The compiled conditions of an {@link Interceptor}, see {@link Interceptor#methods()}, {@link Interceptor#paths()},
+ * {@link Interceptor#headers()} and {@link Interceptor#sampleRate()}
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+final class InterceptorCondition {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final String[] methods;
+
+    private final String[] paths;
+
+    private final HeaderExpression[] headers;
+
+    private final double sampleRate;
+
+    private InterceptorCondition(String[] methods, String[] paths, HeaderExpression[] headers, double sampleRate) {
+        this.methods = methods;
+        this.paths = paths;
+        this.headers = headers;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Compile the conditions of the interceptor annotation
+     * @param interceptor interceptor annotation
+     * @return condition or null if the interceptor applies to all requests
+     */
+    static InterceptorCondition compile(Interceptor interceptor) {
+        String[] methods = null;
+        if (interceptor.methods().length > 0) {
+            methods = new String[interceptor.methods().length];
+            for (int i = 0; i < methods.length; i++) methods[i] = interceptor.methods()[i].trim().toUpperCase(Locale.ENGLISH);
+        }
+        String[] paths = interceptor.paths().length > 0 ? interceptor.paths().clone() : null;
+        HeaderExpression[] headers = null;
+        if (interceptor.headers().length > 0) {
+            headers = new HeaderExpression[interceptor.headers().length];
+            for (int i = 0; i < headers.length; i++) headers[i] = new HeaderExpression(interceptor.headers()[i]);
+        }
+        double sampleRate = interceptor.sampleRate();
+        if (sampleRate < 0 || sampleRate > 1 || Double.isNaN(sampleRate)) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1: " + sampleRate);
+        }
+        if (methods == null && paths == null && headers == null && sampleRate == 1) return null;
+        return new InterceptorCondition(methods, paths, headers, sampleRate);
+    }
+
+    boolean matches(HttpServletRequest request) {
+        if (methods != null && !matchesMethod(request.getMethod())) return false;
+        if (headers != null) {
+            for (HeaderExpression header : headers) {
+                if (!header.matches(request)) return false;
+            }
+        }
+        if (paths != null && !matchesPath(request)) return false;
+        return sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    private boolean matchesMethod(String method) {
+        for (String m : methods) {
+            if (m.equals(method)) return true;
+        }
+        return false;
+    }
+
+    private boolean matchesPath(HttpServletRequest request) {
+        Object attr = request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        String path;
+        if (attr instanceof String) {
+            path = (String) attr;
+        } else {
+            path = request.getRequestURI();
+            String contextPath = request.getContextPath();
+            if (contextPath != null && path.startsWith(contextPath)) path = path.substring(contextPath.length());
+        }
+        for (String pattern : paths) {
+            if (PATH_MATCHER.match(pattern, path)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "InterceptorCondition{methods=" + Arrays.toString(methods) + ", paths=" + Arrays.toString(paths)
+                + ", headers=" + Arrays.toString(headers) + ", sampleRate=" + sampleRate + "}";
+    }
+
+    private static final class HeaderExpression {
+
+        private final String name;
+
+        private final String value;
+
+        private final boolean negated;
+
+        HeaderExpression(String expression) {
+            int separator = expression.indexOf('=');
+            if (separator == -1) {
+                this.negated = expression.startsWith("!");
+                this.name = (negated ? expression.substring(1) : expression).trim();
+                this.value = null;
+            } else {
+                this.negated = separator > 0 && expression.charAt(separator - 1) == '!';
+                this.name = expression.substring(0, negated ? separator - 1 : separator).trim();
+                this.value = expression.substring(separator + 1).trim();
+            }
+            if (name.isEmpty()) throw new IllegalArgumentException("Illegal header expression: " + expression);
+        }
+
+        boolean matches(HttpServletRequest request) {
+            String header = request.getHeader(name);
+            boolean matched = value == null ? header != null : value.equals(header);
+            return matched != negated;
+        }
+
+        @Override
+        public String toString() {
+            return value == null ? (negated ? "!" : "") + name : name + (negated ? "!=" : "=") + value;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.mayanjun.myrest.interceptor;
+
+import org.mayanjun.myrest.WebMVC;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.annotation.Annotation;
+
+/**
+ * Per-request state of the handler shared by the interceptors of a request.
+ * It resolves the {@link HandlerAnnotationIndex} once and memoizes the results of
+ * {@link AnnotationBasedHandlerInterceptor#castBeanTo(Class, HttpServletRequest, Object)}.
+ * <p>
+ *     It is stored in the request attribute {@link #REQUEST_ATTR_HANDLER_CONTEXT} and must only be used
+ *     by the thread processing the request.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public final class RequestHandlerContext {
+
+    /**
+     * Request attribute key to access the context
+     */
+    public static final String REQUEST_ATTR_HANDLER_CONTEXT = WebMVC.class.getName() + ".REQUEST_ATTR_HANDLER_CONTEXT";
+
+    private static final int MAX_CASTS = 4;
+
+    private static final Object NONE = new Object();
+
+    private final HandlerMethod handlerMethod;
+
+    private final HandlerAnnotationIndex annotations;
+
+    private final Class<?>[] castTypes = new Class<?>[MAX_CASTS];
+
+    private final Object[] castResults = new Object[MAX_CASTS];
+
+    private int casts;
+
+    private RequestHandlerContext(HandlerMethod handlerMethod) {
+        this.handlerMethod = handlerMethod;
+        this.annotations = HandlerAnnotationIndex.of(handlerMethod);
+    }
+
+    /**
+     * Returns the context of the request, it is created if absent or the handler has changed
+     * (e.g. a forward to another handler)
+     * @param request current request, a context that is not attached is returned if null
+     * @param handlerMethod handler method
+     * @return context
+     */
+    public static RequestHandlerContext of(HttpServletRequest request, HandlerMethod handlerMethod) {
+        if (request == null) return new RequestHandlerContext(handlerMethod);
+        Object attr = request.getAttribute(REQUEST_ATTR_HANDLER_CONTEXT);
+        if (attr instanceof RequestHandlerContext) {
+            RequestHandlerContext context = (RequestHandlerContext) attr;
+            if (context.handlerMethod == handlerMethod
+                    || (context.handlerMethod.getMethod() == handlerMethod.getMethod()
+                    && context.handlerMethod.getBean() == handlerMethod.getBean())) return context;
+        }
+        RequestHandlerContext context = new RequestHandlerContext(handlerMethod);
+        request.setAttribute(REQUEST_ATTR_HANDLER_CONTEXT, context);
+        return context;
+    }
+
+    public HandlerMethod getHandlerMethod() {
+        return handlerMethod;
+    }
+
+    public HandlerAnnotationIndex getAnnotations() {
+        return annotations;
+    }
+
+    public <T extends Annotation> T findAnnotation(Class<T> annotationClass) {
+        return annotations.get(annotationClass);
+    }
+
+    /**
+     * Cast the handler bean to the type
+     * @param type the type be cast to
+     * @param <T> the type be cast to
+     * @return the bean or null if it is not an instance of the type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T castBeanTo(Class<T> type) {
+        if (type == null) return null;
+        for (int i = 0; i < casts; i++) {
+            if (castTypes[i] == type) return castResults[i] == NONE ? null : (T) castResults[i];
+        }
+        Object bean = type.isAssignableFrom(handlerMethod.getBeanType()) ? handlerMethod.getBean() : null;
+        if (casts < MAX_CASTS) {
+            castTypes[casts] = type;
+            castResults[casts++] = bean == null ? NONE : bean;
+        }
+        return (T) bean;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request count, error count and latency of one handler method of a bean type. Recording is lock-free.
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class HandlerMetrics {
+
+    private final Class<?> beanType;
+
+    private final Method method;
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder totalMicros = new LongAdder();
+
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0L);
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    public HandlerMetrics(Class<?> beanType, Method method) {
+        this.beanType = beanType;
+        this.method = method;
+    }
+
+    /**
+     * Record a request
+     * @param elapsedNanos elapsed time in nanoseconds
+     * @param error whether the request is failed
+     */
+    public void record(long elapsedNanos, boolean error) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+        requests.increment();
+        if (error) errors.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+        histogram.record(micros);
+    }
+
+    public HandlerMetricsSnapshot snapshot() {
+        long counts[] = histogram.counts();
+        long requests = this.requests.sum();
+        long total = totalMicros.sum();
+        return new HandlerMetricsSnapshot(
+                beanType,
+                method,
+                requests,
+                errors.sum(),
+                requests == 0 ? 0 : total / requests,
+                maxMicros.get(),
+                LatencyHistogram.percentile(counts, 0.5),
+                LatencyHistogram.percentile(counts, 0.99),
+                LatencyHistogram.percentile(counts, 0.999)
+        );
+    }
+
+    public Class<?> getBeanType() {
+        return beanType;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.metrics;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link HandlerMetrics} of all handler methods. Metrics are kept per bean type and method,
+ * so a method inherited by several controllers is recorded for each of them
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public final class HandlerMetricsRegistry {
+
+    private static final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Method, HandlerMetrics>> METRICS =
+            new ConcurrentHashMap<Class<?>, ConcurrentHashMap<Method, HandlerMetrics>>();
+
+    private HandlerMetricsRegistry() {
+    }
+
+    /**
+     * Returns the metrics of the handler method, creates one if absent
+     * @param beanType bean type
+     * @param method handler method
+     * @return metrics
+     */
+    public static HandlerMetrics get(Class<?> beanType, Method method) {
+        ConcurrentHashMap<Method, HandlerMetrics> methods = METRICS.get(beanType);
+        if (methods == null) methods = METRICS.computeIfAbsent(beanType, t -> new ConcurrentHashMap<Method, HandlerMetrics>());
+        HandlerMetrics metrics = methods.get(method);
+        if (metrics == null) metrics = methods.computeIfAbsent(method, m -> new HandlerMetrics(beanType, m));
+        return metrics;
+    }
+
+    /**
+     * Take a snapshot of all handler methods. Recording is not blocked while the snapshot is taken,
+     * so counters of one snapshot may be a few requests apart from each other.
+     * @return snapshots
+     */
+    public static List<HandlerMetricsSnapshot> snapshot() {
+        List<HandlerMetricsSnapshot> snapshots = new ArrayList<HandlerMetricsSnapshot>();
+        for (ConcurrentHashMap<Method, HandlerMetrics> methods : METRICS.values()) {
+            for (HandlerMetrics metrics : methods.values()) snapshots.add(metrics.snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Remove all metrics
+     */
+    public static void clear() {
+        METRICS.clear();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.metrics;
+
+import java.lang.reflect.Method;
+
+/**
+ * Point in time view of {@link HandlerMetrics}, latencies are in microseconds
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class HandlerMetricsSnapshot {
+
+    private final Class<?> beanType;
+    private final Method method;
+    private final long requests;
+    private final long errors;
+    private final long mean;
+    private final long max;
+    private final long p50;
+    private final long p99;
+    private final long p999;
+
+    public HandlerMetricsSnapshot(Class<?> beanType, Method method, long requests, long errors, long mean, long max, long p50, long p99, long p999) {
+        this.beanType = beanType;
+        this.method = method;
+        this.requests = requests;
+        this.errors = errors;
+        this.mean = mean;
+        this.max = max;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+    }
+
+    public Class<?> getBeanType() {
+        return beanType;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getMean() {
+        return mean;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    @Override
+    public String toString() {
+        return "HandlerMetricsSnapshot{" +
+                "method=" + beanType.getSimpleName() + "." + method.getName() +
+                ", requests=" + requests +
+                ", errors=" + errors +
+                ", mean=" + mean +
+                ", max=" + max +
+                ", p50=" + p50 +
+                ", p99=" + p99 +
+                ", p999=" + p999 +
+                '}';
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed bucket, log-linear histogram in the spirit of HdrHistogram.
+ * <p>
+ *     Values below 16 have their own bucket, larger values are grouped by the position of their highest bit
+ *     and split into 16 linear sub-buckets, so the relative error of a reported value is at most 1/16.
+ *     Values are clamped to 2^40 - 1.
+ * </p>
+ * <p>
+ *     Each bucket is a {@link LongAdder}, so concurrent requests recording into the same bucket are striped
+ *     over cells instead of contending on one counter. Buckets are allocated on their first record,
+ *     latencies of a handler usually fall into a few dozen of them.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_BITS = 40;
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+    static final int BUCKETS = SUB_COUNT + (MAX_BITS - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicReferenceArray<LongAdder> buckets = new AtomicReferenceArray<LongAdder>(BUCKETS);
+
+    public void record(long value) {
+        int index = index(value);
+        LongAdder bucket = buckets.get(index);
+        if (bucket == null) {
+            LongAdder created = new LongAdder();
+            bucket = buckets.compareAndSet(index, null, created) ? created : buckets.get(index);
+        }
+        bucket.increment();
+    }
+
+    /**
+     * Returns a copy of bucket counts, the buckets are read one by one without blocking recorders
+     * @return bucket counts
+     */
+    public long[] counts() {
+        long counts[] = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            LongAdder bucket = buckets.get(i);
+            if (bucket != null) counts[i] = bucket.sum();
+        }
+        return counts;
+    }
+
+    static int index(long value) {
+        if (value < 0) value = 0;
+        else if (value > MAX_VALUE) value = MAX_VALUE;
+        if (value < SUB_COUNT) return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return SUB_COUNT + (exponent - SUB_BITS) * SUB_COUNT + sub;
+    }
+
+    /**
+     * Returns the highest value that falls into the bucket
+     * @param index bucket index
+     * @return highest value of the bucket
+     */
+    static long highestValue(int index) {
+        if (index < SUB_COUNT) return index;
+        int j = index - SUB_COUNT;
+        int shift = j / SUB_COUNT;
+        long lowest = (long) (SUB_COUNT + j % SUB_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Returns the value at the specified percentile
+     * @param counts bucket counts
+     * @param percentile percentile between 0 and 1
+     * @return value at the percentile, 0 if there is no value recorded
+     */
+    public static long percentile(long counts[], double percentile) {
+        long total = 0;
+        for (long c : counts) total += c;
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return highestValue(i);
+        }
+        return highestValue(counts.length - 1);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.metrics;
+
+import org.mayanjun.myrest.interceptor.Interceptor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Record request count, error count and latency histogram of the annotated handler methods.
+ * Annotated on a controller class means all of its handler methods are recorded.
+ * <div>
+ *     Metrics can be exported by {@link HandlerMetricsRegistry#snapshot()}
+ * </div>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Documented
+@Interceptor(TimedInterceptor.class)
+public @interface Timed {
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.metrics;
+
+import org.mayanjun.myrest.WebMVC;
+import org.mayanjun.myrest.interceptor.AnnotationBasedHandlerInterceptor;
+import org.springframework.core.Ordered;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Interceptor of {@link Timed}. Start times are kept in a request attribute as a stack, one per handler of a dispatch,
+ * so a forward or include to another timed handler is recorded separately from the outer one.
+ * The async dispatch of the same handler keeps the start time of the first dispatch.
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class TimedInterceptor extends AnnotationBasedHandlerInterceptor {
+
+    /**
+     * Request attribute key of the stack of timings the request holds
+     */
+    public static final String REQUEST_ATTR_TIMINGS = TimedInterceptor.class.getName() + ".TIMINGS";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod)) return true;
+        HandlerMethod hm = (HandlerMethod) handler;
+        HandlerMetrics metrics = HandlerMetricsRegistry.get(hm.getBeanType(), hm.getMethod());
+        Deque<Timing> timings = getTimings(request, false);
+        if (timings != null && !timings.isEmpty()) {
+            Timing top = timings.peek();
+            if (top.handler == handler) return true;
+            // keep the original start time on async dispatch
+            if (top.metrics == metrics && request.getDispatcherType() == DispatcherType.ASYNC) {
+                top.handler = handler;
+                return true;
+            }
+        }
+
+        if (timings == null) timings = getTimings(request, true);
+        timings.push(new Timing(handler, metrics, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
+        Deque<Timing> timings = getTimings(request, false);
+        if (timings == null || timings.isEmpty() || timings.peek().handler != handler) return;
+
+        Timing timing = timings.pop();
+        if (timings.isEmpty()) request.removeAttribute(REQUEST_ATTR_TIMINGS);
+
+        long elapsed = System.nanoTime() - timing.start;
+        boolean error = ex != null
+                || request.getAttribute(WebMVC.REQUEST_ATTR_EXCEPTION) != null
+                || response.getStatus() >= 500;
+        timing.metrics.record(elapsed, error);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Deque<Timing> getTimings(HttpServletRequest request, boolean create) {
+        Object attr = request.getAttribute(REQUEST_ATTR_TIMINGS);
+        if (attr instanceof Deque) return (Deque<Timing>) attr;
+        if (!create) return null;
+        Deque<Timing> timings = new ArrayDeque<Timing>(2);
+        request.setAttribute(REQUEST_ATTR_TIMINGS, timings);
+        return timings;
+    }
+
+    /**
+     * Start time of the handler of a dispatch
+     */
+    private static final class Timing {
+
+        Object handler;
+
+        final HandlerMetrics metrics;
+
+        final long start;
+
+        Timing(Object handler, HandlerMetrics metrics, long start) {
+            this.handler = handler;
+            this.metrics = metrics;
+            this.start = start;
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,582 @@
+package org.mayanjun.myrest.session;
+
+import org.mayanjun.core.Assert;
+import org.mayanjun.core.ServiceException;
+import org.mayanjun.core.Status;
+import org.mayanjun.myrest.util.LocalCache;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public abstract class AbstractSession<T> implements Session<T> {
+
+    // about login
+    public static final Status NO_SIGN_IN = new Status(2001, "用户未登录");
+    public static Status USERNAME_OR_PASSWORD_INCORRECT = new Status(2002, "用户名或密码错误");
+
+    public static final String DEFAULT_TOKEN_NAME = "mytoken";
+    public static final int DEFAULT_TOKEN_CACHE_SIZE = 10000;
+    public static final long DEFAULT_TOKEN_CACHE_EXPIRE_MILLIS = 30 * 60 * 1000L;
+    public static final long DEFAULT_USER_CACHE_EXPIRE_MILLIS = 5 * 1000L;
+
+    private static final int INVALIDATION_STRIPES = 64;
+
+    /**
+     * 当前登录用户
+     */
+    private SessionContextHolder<T> contextHolder = new ThreadLocalSessionContextHolder<T>();
+
+    /**
+     * 系统的域名或者域
+     */
+    private String domain;
+
+    /**
+     * 登录成功后的Cookie名称
+     */
+    private String tokenName = DEFAULT_TOKEN_NAME;
+
+    /**
+     * 用户数据加载器
+     */
+    private UserLoader<T> userLoader;
+
+    /**
+     * 已验证TOKEN的缓存大小，小于等于0时不缓存
+     */
+    private int tokenCacheSize = DEFAULT_TOKEN_CACHE_SIZE;
+
+    /**
+     * 已验证TOKEN的缓存时间（毫秒）
+     */
+    private long tokenCacheExpireMillis = DEFAULT_TOKEN_CACHE_EXPIRE_MILLIS;
+
+    /**
+     * 已验证TOKEN的缓存，TOKEN原文 -> 解密后的TOKEN
+     */
+    private volatile LocalCache<String, String> tokenCache = createTokenCache();
+
+    /**
+     * 本地用户缓存大小，小于等于0时不缓存
+     */
+    private int userCacheSize;
+
+    /**
+     * 本地用户缓存时间（毫秒）
+     */
+    private long userCacheExpireMillis = DEFAULT_USER_CACHE_EXPIRE_MILLIS;
+
+    /**
+     * 本地用户缓存，位于{@link UserLoader}之前，用户名 -> 已登录用户
+     */
+    private volatile LocalCache<String, SessionUser<T>> userCache;
+
+    /**
+     * 用户失效代数，按用户名哈希分段，加载前后代数变化时不写入本地用户缓存
+     */
+    private final AtomicLongArray invalidationGenerations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    /**
+     * 用户登录状态变更监听器
+     */
+    private final List<UserInvalidationListener> invalidationListeners = new CopyOnWriteArrayList<UserInvalidationListener>();
+
+    /**
+     * 是否合并同一用户名的并发加载
+     */
+    private boolean singleFlight = true;
+
+    /**
+     * 正在加载中的用户，用户名 -> 加载结果
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<SessionUser<T>>> loadingUsers =
+            new ConcurrentHashMap<String, CompletableFuture<SessionUser<T>>>();
+
+    /**
+     * 批量加载器，为空时逐个加载
+     */
+    private UserLoadBatcher<T> userLoadBatcher;
+
+    public AbstractSession() {
+    }
+
+    public AbstractSession(String domain, String tokenName, UserLoader<T> userLoader) {
+        this.domain = domain;
+        this.tokenName = tokenName;
+        this.userLoader = userLoader;
+    }
+
+    /**
+     * 一个WEB请求结束后清除登录状态
+     */
+    @Override
+    public void clear() {
+        contextHolder.clear();
+    }
+
+    @Override
+    public SessionUser<T> getUser(HttpServletRequest request) {
+        contextHolder.set(request, null);
+
+        String token = getToken(request);
+        Assert.notBlank(token, NO_SIGN_IN);
+
+        String uat = resolveToken(token);
+        Assert.notBlank(uat, NO_SIGN_IN);
+
+        String uats[] = uat.split(";");
+        SessionUser<T> user = loadSignedInUser(uats[0]);
+        Assert.notNull(user, NO_SIGN_IN);
+
+        contextHolder.set(request, user);
+        return user;
+    }
+
+    /**
+     * Returns the plain token, the decrypted result is cached so that repeat requests
+     * carrying the same cookie do not decrypt it again
+     * @param token encrypted token
+     * @return plain token
+     */
+    protected String resolveToken(String token) {
+        LocalCache<String, String> cache = this.tokenCache;
+        if (cache == null) return decryptToken(token);
+
+        String uat = cache.get(token);
+        if (uat == null) {
+            uat = decryptToken(token);
+            if (uat != null && !uat.trim().isEmpty()) cache.put(token, uat);
+        }
+        return uat;
+    }
+
+    /**
+     * Returns the signed in user from the user cache. Concurrent lookups of the same username share one load
+     * if single flight is enabled, and lookups are merged into bulk calls if a {@link UserLoadBatcher} is set.
+     * The result is kept in the local user cache if it is enabled, unless the user is invalidated while it is loaded.
+     * @param username username
+     * @return signed in user or null
+     */
+    protected SessionUser<T> loadSignedInUser(String username) {
+        LocalCache<String, SessionUser<T>> cache = this.userCache;
+        if (cache == null) return loadSharedUser(username);
+
+        SessionUser<T> user = cache.get(username);
+        if (user == null) {
+            long generation = invalidationGeneration(username);
+            user = loadSharedUser(username);
+            if (user != null && invalidationGeneration(username) == generation) {
+                cache.put(username, user);
+                // invalidated between the check and the put
+                if (invalidationGeneration(username) != generation) cache.invalidate(username);
+            }
+        }
+        return user;
+    }
+
+    private SessionUser<T> loadSharedUser(String username) {
+        if (!singleFlight) return doLoadSignedInUser(username);
+
+        CompletableFuture<SessionUser<T>> loading = loadingUsers.get(username);
+        if (loading == null) {
+            CompletableFuture<SessionUser<T>> future = new CompletableFuture<SessionUser<T>>();
+            loading = loadingUsers.putIfAbsent(username, future);
+            if (loading == null) {
+                try {
+                    SessionUser<T> user = doLoadSignedInUser(username);
+                    future.complete(user);
+                    return user;
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                    throw e;
+                } catch (Error e) {
+                    future.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    loadingUsers.remove(username, future);
+                }
+            }
+        }
+        return join(loading);
+    }
+
+    private SessionUser<T> doLoadSignedInUser(String username) {
+        UserLoadBatcher<T> batcher = this.userLoadBatcher;
+        if (batcher == null) return userLoader.getUserFromCache(username);
+        CompletableFuture<SessionUser<T>> future = batcher.load(username);
+        try {
+            return future.get(batcher.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // the batch is stuck, load the user alone
+            return userLoader.getUserFromCache(username);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading user", e);
+        } catch (ExecutionException e) {
+            return join(future);
+        }
+    }
+
+    private static <U> U join(CompletableFuture<U> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading user", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) cause = cause.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException("Load user failed", cause);
+        }
+    }
+
+    protected String getToken(HttpServletRequest request) throws ServiceException {
+        Cookie cookies[] = request.getCookies();
+        Assert.notNull(cookies, NO_SIGN_IN);
+        String token = null;
+        String cookieName = this.getTokenName();
+        for(Cookie cookie : cookies) {
+            if(cookieName.equals(cookie.getName())) {
+                token = cookie.getValue();
+                break;
+            }
+        }
+        Assert.notEmpty(token, NO_SIGN_IN);
+        return token;
+    }
+
+    @Override
+    public SessionUser<T> getCurrentUser() {
+        SessionUser<T> user = contextHolder.get();
+        Assert.notNull(user, NO_SIGN_IN);
+        return user;
+    }
+
+    SessionUser<T> findCurrentUser() {
+        return contextHolder.get();
+    }
+
+    void setCurrentUser(SessionUser<T> user) {
+        contextHolder.set(null, user);
+    }
+
+    /**
+     * Returns a task that runs with the current user of the calling thread, so that
+     * {@link #getCurrentUser()} works in the thread completing a {@code DeferredResult} or {@code CompletableFuture}.
+     * The user of the executing thread is restored after the task
+     * @param task task
+     * @return wrapped task
+     */
+    public Runnable wrap(final Runnable task) {
+        final SessionUser<T> user = findCurrentUser();
+        return () -> {
+            SessionUser<T> previous = findCurrentUser();
+            setCurrentUser(user);
+            try {
+                task.run();
+            } finally {
+                setCurrentUser(previous);
+            }
+        };
+    }
+
+    /**
+     * Returns a task that runs with the current user of the calling thread
+     * @param task task
+     * @param <V> result type
+     * @return wrapped task
+     * @see #wrap(Runnable)
+     */
+    public <V> Callable<V> wrap(final Callable<V> task) {
+        final SessionUser<T> user = findCurrentUser();
+        return () -> {
+            SessionUser<T> previous = findCurrentUser();
+            setCurrentUser(user);
+            try {
+                return task.call();
+            } finally {
+                setCurrentUser(previous);
+            }
+        };
+    }
+
+    /**
+     * Returns an executor that runs each task with the current user of the submitting thread,
+     * e.g. {@code CompletableFuture.supplyAsync(supplier, session.wrap(executor))}
+     * @param executor executor
+     * @return wrapped executor
+     */
+    public Executor wrap(final Executor executor) {
+        return command -> executor.execute(wrap(command));
+    }
+
+    @Override
+    public SessionUser<T> signIn(String username, String password, HttpServletResponse response) {
+        SessionUser<T> user = userLoader.loadUser(username);
+        Assert.notNull(user, USERNAME_OR_PASSWORD_INCORRECT);
+        String dbPassword = decryptPassword(user.getPassword());
+        Assert.isTrue(password.equals(dbPassword), USERNAME_OR_PASSWORD_INCORRECT);
+
+        SessionUser<T> loginUser = new SessionUser(user);
+        loginUser.setOriginUser(user.getOriginUser());
+        String cookiePlain = user.getUsername() + ";" + loginUser.getLastLoginTime();
+        String token = encryptToken(cookiePlain);
+
+        userLoader.setUserCache(loginUser);
+        fireUserInvalidated(loginUser.getUsername());
+        response.addCookie(createSigninCookie(token));
+        return loginUser;
+    }
+
+    protected Cookie createSigninCookie(String token) {
+        Cookie cookie = new Cookie(this.getTokenName(), token);
+        cookie.setDomain(this.getDomain());
+        cookie.setPath("/");
+        cookie.setMaxAge(-1);
+        cookie.setVersion(1);
+        cookie.setHttpOnly(true);
+        return cookie;
+    }
+
+    protected Cookie createSignoutCookie() {
+        Cookie cookie = new Cookie(this.getTokenName(), "-");
+        cookie.setDomain(this.getDomain());
+        cookie.setPath("/");
+        cookie.setMaxAge(0);
+        cookie.setVersion(1);
+        return cookie;
+    }
+
+    @Override
+    public void signOut(HttpServletRequest request, HttpServletResponse response) {
+        SessionUser<T> user = getUser(request);
+        LocalCache<String, String> cache = this.tokenCache;
+        if (cache != null) cache.invalidate(getToken(request));
+        userLoader.removeUserCache(user);
+        fireUserInvalidated(user.getUsername());
+        response.addCookie(createSignoutCookie());
+    }
+
+    /**
+     * Remove the user from the local user cache of this node only, listeners are not notified.
+     * Call this when another node reports a sign in or sign out
+     * @param username username
+     */
+    public void invalidateUser(String username) {
+        if (username == null) return;
+        invalidationGenerations.incrementAndGet(invalidationStripe(username));
+        // later lookups must not join a load started before the invalidation
+        loadingUsers.remove(username);
+        LocalCache<String, SessionUser<T>> cache = this.userCache;
+        if (cache != null) cache.invalidate(username);
+    }
+
+    private long invalidationGeneration(String username) {
+        return invalidationGenerations.get(invalidationStripe(username));
+    }
+
+    private static int invalidationStripe(String username) {
+        int h = username.hashCode();
+        return (h ^ (h >>> 16)) & (INVALIDATION_STRIPES - 1);
+    }
+
+    private void fireUserInvalidated(String username) {
+        invalidateUser(username);
+        for (UserInvalidationListener listener : invalidationListeners) {
+            listener.onUserInvalidated(username);
+        }
+    }
+
+    public void addUserInvalidationListener(UserInvalidationListener listener) {
+        if (listener != null) invalidationListeners.add(listener);
+    }
+
+    public void removeUserInvalidationListener(UserInvalidationListener listener) {
+        invalidationListeners.remove(listener);
+    }
+
+    /**
+     * Replace all invalidation listeners
+     * @param listeners listeners
+     */
+    public void setUserInvalidationListeners(List<UserInvalidationListener> listeners) {
+        invalidationListeners.clear();
+        if (listeners != null) invalidationListeners.addAll(listeners);
+    }
+
+    @Override
+    public String getDomain() {
+        return domain;
+    }
+
+    @Override
+    public void setDomain(String domain) {
+        this.domain = domain;
+    }
+
+    @Override
+    public String getTokenName() {
+        return tokenName;
+    }
+
+    @Override
+    public void setTokenName(String tokenName) {
+        if(tokenName != null && !tokenName.trim().isEmpty()) {
+            this.tokenName = tokenName;
+        }
+    }
+
+    @Override
+    public UserLoader<T> getUserLoader() {
+        return this.userLoader;
+    }
+
+    @Override
+    public void setUserLoader(UserLoader<T> userLoader) {
+        this.userLoader = userLoader;
+    }
+
+    public SessionContextHolder<T> getContextHolder() {
+        return contextHolder;
+    }
+
+    /**
+     * Set where the current user is kept, {@link ThreadLocalSessionContextHolder} by default.
+     * {@link RequestAttributeSessionContextHolder} keeps it in the request so that nothing is left
+     * in the thread if {@link #clear()} is not called
+     * @param contextHolder context holder
+     */
+    public void setContextHolder(SessionContextHolder<T> contextHolder) {
+        if (contextHolder == null) throw new IllegalArgumentException("contextHolder can not be null");
+        this.contextHolder = contextHolder;
+    }
+
+    /**
+     * Returns the verified token cache, or null if token cache is disabled
+     * @return token cache
+     */
+    public LocalCache<String, String> getTokenCache() {
+        return tokenCache;
+    }
+
+    /**
+     * Set max tokens to cache, 0 or negative disables the token cache
+     * @param maximumSize max tokens to cache
+     */
+    public void setTokenCacheSize(int maximumSize) {
+        this.tokenCacheSize = maximumSize;
+        this.tokenCache = createTokenCache();
+    }
+
+    /**
+     * Set time to live of a cached token
+     * @param expireMillis time to live in milliseconds
+     */
+    public void setTokenCacheExpireMillis(long expireMillis) {
+        this.tokenCacheExpireMillis = expireMillis;
+        this.tokenCache = createTokenCache();
+    }
+
+    /**
+     * Returns the local user cache, or null if it is disabled
+     * @return local user cache
+     */
+    public LocalCache<String, SessionUser<T>> getUserCache() {
+        return userCache;
+    }
+
+    /**
+     * Set max users to keep in the local user cache, 0 or negative disables it. Disabled by default
+     * @param maximumSize max users to cache
+     */
+    public void setUserCacheSize(int maximumSize) {
+        this.userCacheSize = maximumSize;
+        this.userCache = createUserCache();
+    }
+
+    /**
+     * Set time to live of a locally cached user, keep it short because other nodes
+     * may change the user without notifying this one
+     * @param expireMillis time to live in milliseconds
+     */
+    public void setUserCacheExpireMillis(long expireMillis) {
+        this.userCacheExpireMillis = expireMillis;
+        this.userCache = createUserCache();
+    }
+
+    private LocalCache<String, SessionUser<T>> createUserCache() {
+        if (userCacheSize <= 0) return null;
+        return new LocalCache<String, SessionUser<T>>(userCacheSize, userCacheExpireMillis);
+    }
+
+    public boolean isSingleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * Set whether concurrent lookups of the same username share one load, enabled by default
+     * @param singleFlight true to enable
+     */
+    public void setSingleFlight(boolean singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    public UserLoadBatcher<T> getUserLoadBatcher() {
+        return userLoadBatcher;
+    }
+
+    /**
+     * Set the batcher used to merge user lookups into bulk calls, null to look up users one by one
+     * @param userLoadBatcher batcher
+     */
+    public void setUserLoadBatcher(UserLoadBatcher<T> userLoadBatcher) {
+        this.userLoadBatcher = userLoadBatcher;
+    }
+
+    private LocalCache<String, String> createTokenCache() {
+        if (tokenCacheSize <= 0) return null;
+        return new LocalCache<String, String>(tokenCacheSize, tokenCacheExpireMillis);
+    }
+
+    /**
+     * Decrypt database password
+     * @param password encrypted password
+     * @return plain password
+     */
+    public abstract String decryptPassword(String password);
+
+    /**
+     * Encrypt password
+     * @param password plain password
+     * @return encrypted password
+     */
+    public abstract String encryptPassword(String password);
+
+    /**
+     * Encrypt token
+     * @param tokenPlain plain token
+     * @return encrypted token
+     */
+    public abstract String encryptToken(String tokenPlain);
+
+    /**
+     * Decrypt token
+     * @param token encrypted token
+     * @return returns plain token
+     */
+    public abstract String decryptToken(String token);
+}
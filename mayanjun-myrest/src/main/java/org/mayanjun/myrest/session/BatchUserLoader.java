@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.session;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 支持批量获取已登录用户的加载器
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public interface BatchUserLoader<T> extends UserLoader<T> {
+
+    /**
+     * 从缓存中批量获取已登录用户，不存在的用户不包含在结果中
+     * @param usernames usernames
+     * @return username -> user
+     */
+    Map<String, SessionUser<T>> getUsersFromCache(Collection<String> usernames);
+
+    /**
+     * 异步批量获取已登录用户，默认在调用线程中执行{@link #getUsersFromCache(Collection)}
+     * @param usernames usernames
+     * @return username -> user
+     */
+    default CompletableFuture<Map<String, SessionUser<T>>> getUsersFromCacheAsync(Collection<String> usernames) {
+        try {
+            return CompletableFuture.completedFuture(getUsersFromCache(usernames));
+        } catch (Throwable e) {
+            CompletableFuture<Map<String, SessionUser<T>>> future = new CompletableFuture<Map<String, SessionUser<T>>>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+}
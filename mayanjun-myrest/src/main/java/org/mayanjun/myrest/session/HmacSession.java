@@ -0,0 +1,265 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.session;
+
+import org.mayanjun.util.Crypto;
+import org.springframework.beans.factory.annotation.Required;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * WEB登录的session会话管理器，TOKEN不加密，使用HMAC-SHA256签名
+ * <p>
+ *     Token format is {@code keyId.base64url(username;issuedAt;expiresAt).base64url(signature)},
+ *     the signature covers {@code keyId.payload}. The key id selects the verification key so that keys can be rotated:
+ *     add the new key, make it active, and remove the old key once all tokens signed by it are expired.
+ * </p>
+ * <p>
+ *     Expired or badly signed tokens are rejected locally without calling the {@link UserLoader}.
+ *     The verified token cache of {@link AbstractSession} is not used because verification is cheaper than a lookup.
+ * </p>
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class HmacSession<T> extends AbstractSession<T> {
+
+    public static final String ALGORITHM = "HmacSHA256";
+    public static final long DEFAULT_TOKEN_TTL_MILLIS = 12 * 60 * 60 * 1000L;
+    private static final int MIN_SECRET_LENGTH = 32;
+    private static final int SIGNATURE_LENGTH = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * 密码加解密
+     */
+    private Crypto crypto;
+
+    /**
+     * 签名密钥，密钥ID -> 密钥
+     */
+    private volatile Map<String, SigningKey> keys = Collections.emptyMap();
+
+    /**
+     * 签发TOKEN使用的密钥ID
+     */
+    private volatile String activeKeyId;
+
+    /**
+     * TOKEN有效期（毫秒）
+     */
+    private long tokenTtlMillis = DEFAULT_TOKEN_TTL_MILLIS;
+
+    public HmacSession() {
+        super();
+        setTokenCacheSize(0);
+    }
+
+    public HmacSession(String domain, Crypto crypto, UserLoader<T> userLoader) {
+        this(domain, crypto, DEFAULT_TOKEN_NAME, userLoader);
+    }
+
+    public HmacSession(String domain, Crypto crypto, String tokenName, UserLoader<T> userLoader) {
+        super(domain, tokenName, userLoader);
+        this.crypto = crypto;
+        setTokenCacheSize(0);
+    }
+
+    @Override
+    public String decryptPassword(String password) {
+        return crypto.decrypt(password);
+    }
+
+    @Override
+    public String encryptPassword(String password) {
+        return crypto.encrypt(password);
+    }
+
+    @Override
+    protected String resolveToken(String token) {
+        return decryptToken(token);
+    }
+
+    /**
+     * Sign the token
+     * @param tokenPlain {@code username;issuedAt}
+     * @return signed token
+     */
+    @Override
+    public String encryptToken(String tokenPlain) {
+        String keyId = this.activeKeyId;
+        SigningKey key = keyId == null ? null : keys.get(keyId);
+        if (key == null) throw new IllegalStateException("No active signing key: keyId=" + keyId);
+
+        long expiresAt = System.currentTimeMillis() + tokenTtlMillis;
+        String payload = ENCODER.encodeToString((tokenPlain + ";" + expiresAt).getBytes(StandardCharsets.UTF_8));
+        String signed = keyId + "." + payload;
+        byte signature[] = key.sign(signed.getBytes(StandardCharsets.US_ASCII), signed.length());
+        return signed + "." + ENCODER.encodeToString(signature);
+    }
+
+    /**
+     * Verify the token
+     * @param token signed token
+     * @return {@code username;issuedAt;expiresAt}, or null if the token is malformed, badly signed or expired
+     */
+    @Override
+    public String decryptToken(String token) {
+        if (token == null) return null;
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        if (first <= 0 || last <= first + 1 || last == token.length() - 1) return null;
+
+        SigningKey key = keys.get(token.substring(0, first));
+        if (key == null) return null;
+
+        byte bytes[] = token.getBytes(StandardCharsets.ISO_8859_1);
+        try {
+            ByteBuffer signature = DECODER.decode(ByteBuffer.wrap(bytes, last + 1, bytes.length - last - 1));
+            if (signature.remaining() != SIGNATURE_LENGTH || signature.array().length != SIGNATURE_LENGTH) return null;
+            byte expected[] = key.sign(bytes, last);
+            if (!MessageDigest.isEqual(expected, signature.array())) return null;
+
+            ByteBuffer payload = DECODER.decode(ByteBuffer.wrap(bytes, first + 1, last - first - 1));
+            String plain = new String(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining(), StandardCharsets.UTF_8);
+            int sep = plain.lastIndexOf(';');
+            if (sep < 0 || Long.parseLong(plain.substring(sep + 1)) <= System.currentTimeMillis()) return null;
+            return plain;
+        } catch (IllegalArgumentException e) {
+            // bad base64 or expiry, NumberFormatException included
+            return null;
+        }
+    }
+
+    /**
+     * Add a signing key, the first key added becomes the active key
+     * @param keyId key id, must not contain '.'
+     * @param secret secret, at least 32 bytes
+     */
+    public synchronized void addKey(String keyId, byte secret[]) {
+        if (keyId == null || keyId.isEmpty() || keyId.indexOf('.') >= 0) {
+            throw new IllegalArgumentException("Invalid key id: " + keyId);
+        }
+        if (secret == null || secret.length < MIN_SECRET_LENGTH) {
+            throw new IllegalArgumentException("Secret must be at least " + MIN_SECRET_LENGTH + " bytes: keyId=" + keyId);
+        }
+        Map<String, SigningKey> newKeys = new HashMap<String, SigningKey>(keys);
+        newKeys.put(keyId, new SigningKey(secret));
+        this.keys = Collections.unmodifiableMap(newKeys);
+        if (activeKeyId == null) activeKeyId = keyId;
+    }
+
+    /**
+     * Remove a signing key, tokens signed by it are rejected from now on
+     * @param keyId key id
+     */
+    public synchronized void removeKey(String keyId) {
+        if (keyId != null && keyId.equals(activeKeyId)) {
+            throw new IllegalArgumentException("Can not remove the active key: keyId=" + keyId);
+        }
+        Map<String, SigningKey> newKeys = new HashMap<String, SigningKey>(keys);
+        newKeys.remove(keyId);
+        this.keys = Collections.unmodifiableMap(newKeys);
+    }
+
+    /**
+     * Set signing keys
+     * @param keys key id -> base64 encoded secret
+     */
+    @Required
+    public synchronized void setKeys(Map<String, String> keys) {
+        this.keys = Collections.emptyMap();
+        this.activeKeyId = null;
+        for (Map.Entry<String, String> entry : keys.entrySet()) {
+            addKey(entry.getKey(), Base64.getDecoder().decode(entry.getValue()));
+        }
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    /**
+     * Set the key used to sign new tokens
+     * @param activeKeyId key id of an added key
+     */
+    public synchronized void setActiveKeyId(String activeKeyId) {
+        if (!keys.containsKey(activeKeyId)) throw new IllegalArgumentException("Unknown key id: " + activeKeyId);
+        this.activeKeyId = activeKeyId;
+    }
+
+    public long getTokenTtlMillis() {
+        return tokenTtlMillis;
+    }
+
+    public void setTokenTtlMillis(long tokenTtlMillis) {
+        if (tokenTtlMillis <= 0) throw new IllegalArgumentException("tokenTtlMillis must be greater than 0");
+        this.tokenTtlMillis = tokenTtlMillis;
+    }
+
+    public Crypto crypto() {
+        return this.crypto;
+    }
+
+    @Required
+    public void setCrypto(Crypto crypto) {
+        this.crypto = crypto;
+    }
+
+    private static final class SigningKey {
+
+        private final SecretKeySpec key;
+
+        // Mac is not thread safe, keep one per thread to avoid provider lookups
+        private final ThreadLocal<Mac> macs = new ThreadLocal<Mac>();
+
+        SigningKey(byte secret[]) {
+            this.key = new SecretKeySpec(secret, ALGORITHM);
+            mac();
+        }
+
+        byte[] sign(byte data[], int length) {
+            Mac mac = mac();
+            mac.update(data, 0, length);
+            return mac.doFinal();
+        }
+
+        private Mac mac() {
+            Mac mac = macs.get();
+            if (mac == null) {
+                try {
+                    mac = Mac.getInstance(ALGORITHM);
+                    mac.init(key);
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Can not initialize " + ALGORITHM, e);
+                }
+                macs.set(mac);
+            }
+            return mac;
+        }
+    }
+}
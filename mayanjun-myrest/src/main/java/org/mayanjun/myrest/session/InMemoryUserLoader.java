@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.session;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于内存的用户加载器，适用于测试或单机部署
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class InMemoryUserLoader<T> implements BatchUserLoader<T> {
+
+    /**
+     * 原始用户数据，用户名 -> 用户
+     */
+    private final Map<String, SessionUser<T>> users = new ConcurrentHashMap<String, SessionUser<T>>();
+
+    /**
+     * 已登录用户，用户名 -> 用户
+     */
+    private final Map<String, SessionUser<T>> signedInUsers = new ConcurrentHashMap<String, SessionUser<T>>();
+
+    /**
+     * 读取已登录用户的次数
+     */
+    private final AtomicLong cacheReads = new AtomicLong();
+
+    /**
+     * 添加原始用户
+     * @param user user
+     */
+    public void addUser(SessionUser<T> user) {
+        users.put(user.getUsername(), user);
+    }
+
+    @Override
+    public SessionUser<T> loadUser(String username) {
+        return users.get(username);
+    }
+
+    @Override
+    public void setUserCache(SessionUser<T> user) {
+        signedInUsers.put(user.getUsername(), user);
+    }
+
+    @Override
+    public void removeUserCache(SessionUser<T> user) {
+        signedInUsers.remove(user.getUsername());
+    }
+
+    @Override
+    public SessionUser<T> getUserFromCache(String username) {
+        cacheReads.incrementAndGet();
+        return signedInUsers.get(username);
+    }
+
+    @Override
+    public Map<String, SessionUser<T>> getUsersFromCache(Collection<String> usernames) {
+        cacheReads.incrementAndGet();
+        Map<String, SessionUser<T>> result = new HashMap<String, SessionUser<T>>(usernames.size() * 2);
+        for (String username : usernames) {
+            SessionUser<T> user = signedInUsers.get(username);
+            if (user != null) result.put(username, user);
+        }
+        return result;
+    }
+
+    /**
+     * Returns how many times the signed in users are read, a bulk read counts once
+     * @return read count
+     */
+    public long getCacheReads() {
+        return cacheReads.get();
+    }
+}
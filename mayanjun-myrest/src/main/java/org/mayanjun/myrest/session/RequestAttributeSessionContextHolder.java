@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.session;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 使用请求属性保存当前登录用户，用户随请求一起释放，无需调用{@link Session#clear()}
+ * <p>
+ *     Outside of a request, e.g. in a task wrapped by {@link AbstractSession#wrap(Runnable)}, the user is kept
+ *     in a thread local which the wrapper removes when the task is done.
+ * </p>
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class RequestAttributeSessionContextHolder<T> implements SessionContextHolder<T> {
+
+    public static final String DEFAULT_ATTRIBUTE_NAME = RequestAttributeSessionContextHolder.class.getName() + ".USER";
+
+    private final String attributeName;
+
+    /**
+     * 请求之外的线程中的当前用户
+     */
+    private final ThreadLocal<SessionUser<T>> detachedUser = new ThreadLocal<SessionUser<T>>();
+
+    public RequestAttributeSessionContextHolder() {
+        this(DEFAULT_ATTRIBUTE_NAME);
+    }
+
+    /**
+     * Constructor
+     * @param attributeName request attribute name, use different names if there are multiple sessions
+     */
+    public RequestAttributeSessionContextHolder(String attributeName) {
+        this.attributeName = attributeName;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public SessionUser<T> get() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) return detachedUser.get();
+        return (SessionUser<T>) attributes.getAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    public void set(HttpServletRequest request, SessionUser<T> user) {
+        if (request != null) {
+            if (user == null) request.removeAttribute(attributeName);
+            else request.setAttribute(attributeName, user);
+            return;
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            if (user == null) attributes.removeAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+            else attributes.setAttribute(attributeName, user, RequestAttributes.SCOPE_REQUEST);
+        } else if (user == null) {
+            detachedUser.remove();
+        } else {
+            detachedUser.set(user);
+        }
+    }
+
+    @Override
+    public void clear() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) attributes.removeAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+        detachedUser.remove();
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.session;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptorAdapter;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Propagate the current user to the thread executing a {@link Callable} returned by a controller.
+ * Register it by {@code WebMvcConfigurer.configureAsyncSupport} or {@code <mvc:async-support>}.
+ * <p>
+ *     For {@code DeferredResult} and {@code CompletableFuture} the completing thread is chosen by the application,
+ *     use {@link AbstractSession#wrap(java.util.concurrent.Executor)} there.
+ * </p>
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class SessionCallableProcessingInterceptor extends CallableProcessingInterceptorAdapter {
+
+    private static final String REQUEST_ATTR_USER = SessionCallableProcessingInterceptor.class.getName() + ".USER";
+
+    private final AbstractSession<?> session;
+
+    public SessionCallableProcessingInterceptor(AbstractSession<?> session) {
+        this.session = session;
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) throws Exception {
+        SessionUser<?> user = session.findCurrentUser();
+        if (user != null) request.setAttribute(REQUEST_ATTR_USER, user, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) throws Exception {
+        Object user = request.getAttribute(REQUEST_ATTR_USER, RequestAttributes.SCOPE_REQUEST);
+        if (user != null) setCurrentUser(session, (SessionUser<?>) user);
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) throws Exception {
+        session.setCurrentUser(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <U> void setCurrentUser(AbstractSession<U> session, SessionUser<?> user) {
+        session.setCurrentUser((SessionUser<U>) user);
+    }
+}
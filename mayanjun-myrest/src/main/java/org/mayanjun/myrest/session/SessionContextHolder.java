@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.session;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 保存当前请求的登录用户
+ * @author mayanjun
+ * @since 0.0.4
+ * @see ThreadLocalSessionContextHolder
+ * @see RequestAttributeSessionContextHolder
+ */
+public interface SessionContextHolder<T> {
+
+    /**
+     * Returns the current user
+     * @return current user or null
+     */
+    SessionUser<T> get();
+
+    /**
+     * Set the current user
+     * @param request current request, null if it is not available (e.g. in an async task)
+     * @param user user, null to remove the current user
+     */
+    void set(HttpServletRequest request, SessionUser<T> user);
+
+    /**
+     * Remove the current user
+     */
+    void clear();
+}
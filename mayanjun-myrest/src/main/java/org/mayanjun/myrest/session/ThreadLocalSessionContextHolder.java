@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.session;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 使用ThreadLocal保存当前登录用户，须在请求结束后调用{@link Session#clear()}
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class ThreadLocalSessionContextHolder<T> implements SessionContextHolder<T> {
+
+    private final ThreadLocal<SessionUser<T>> currentUser = new ThreadLocal<SessionUser<T>>();
+
+    @Override
+    public SessionUser<T> get() {
+        return currentUser.get();
+    }
+
+    @Override
+    public void set(HttpServletRequest request, SessionUser<T> user) {
+        if (user == null) currentUser.remove();
+        else currentUser.set(user);
+    }
+
+    @Override
+    public void clear() {
+        currentUser.remove();
+    }
+}
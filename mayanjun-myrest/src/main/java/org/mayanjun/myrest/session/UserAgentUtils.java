@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.session;
+
+import org.mayanjun.myrest.util.UserAgentClassifier;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static org.mayanjun.myrest.util.UserAgentClassifier.*;
+
+/**
+ * UserAgentUtils, platforms are detected by {@link UserAgentClassifier}
+ *
+ * @author mayanjun(10/12/15)
+ */
+public final class UserAgentUtils {
+
+    private UserAgentUtils() {}
+
+    public static final String USER_AGENT_HEADER = UserAgentClassifier.USER_AGENT_HEADER;
+
+    public static boolean isIOSPlatform(String userAgent) {
+        return is(classify(userAgent), IOS);
+    }
+
+    public static boolean isIOSPlatform(HttpServletRequest request) {
+        return is(classify(request), IOS);
+    }
+
+    public static boolean isApplePlatform(String userAgent) {
+        return is(classify(userAgent), APPLE);
+    }
+
+    public static boolean isApplePlatform(HttpServletRequest request) {
+        return is(classify(request), APPLE);
+    }
+
+    public static boolean isAndroidPlatform(String userAgent) {
+        return is(classify(userAgent), ANDROID);
+    }
+
+    public static boolean isAndroidPlatform(HttpServletRequest request) {
+        return is(classify(request), ANDROID);
+    }
+
+    public static boolean isMobilePlatform(String userAgent) {
+        return is(classify(userAgent), MOBILE);
+    }
+
+    public static boolean isMobilePlatform(HttpServletRequest request) {
+        return is(classify(request), MOBILE);
+    }
+
+    public static boolean isNotMobilePlatform(HttpServletRequest request) {
+        return !isMobilePlatform(request);
+    }
+
+    public static boolean isWindowsPhonePlatform(String userAgent) {
+        return is(classify(userAgent), WINDOWS_PHONE);
+    }
+
+    public static boolean isWindowsPhonePlatform(HttpServletRequest request) {
+        return is(classify(request), WINDOWS_PHONE);
+    }
+}
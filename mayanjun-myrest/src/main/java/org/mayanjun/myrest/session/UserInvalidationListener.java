@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.session;
+
+/**
+ * 用户登录状态变更监听器，用于通知其他节点清除本地缓存的用户
+ * <p>
+ *     The listener is notified when a user signs in or signs out on this node. A cluster implementation
+ *     typically publishes the username to the other nodes, which call {@link AbstractSession#invalidateUser(String)}.
+ * </p>
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public interface UserInvalidationListener {
+
+    /**
+     * 用户登录状态已变更
+     * @param username username
+     */
+    void onUserInvalidated(String username);
+}
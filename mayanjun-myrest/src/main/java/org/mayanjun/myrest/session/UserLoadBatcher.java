@@ -0,0 +1,233 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Merges user lookups that arrive within a short window into one {@link BatchUserLoader#getUsersFromCacheAsync(java.util.Collection)} call.
+ * <p>
+ *     A batch is flushed when the window elapses or when {@link #getMaxBatchSize()} lookups are pending,
+ *     whichever comes first. Duplicate usernames of a batch are loaded only once.
+ * </p>
+ * <p>
+ *     The scheduler thread only collects batches, the loader is called on a separate pool so that a slow call
+ *     does not hold up the following batches. Callers should wait at most {@link #getTimeoutMillis()} for a result
+ *     and fall back to a single user load, as {@link AbstractSession} does.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class UserLoadBatcher<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserLoadBatcher.class);
+
+    public static final long DEFAULT_WINDOW_MILLIS = 2;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 128;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 1000;
+
+    private final BatchUserLoader<T> userLoader;
+
+    private final long windowMillis;
+
+    private final int maxBatchSize;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ExecutorService loadExecutor;
+
+    private volatile long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+
+    private final ConcurrentLinkedQueue<Pending<T>> queue = new ConcurrentLinkedQueue<Pending<T>>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /**
+     * Set when a flush is submitted because a full batch is pending
+     */
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public UserLoadBatcher(BatchUserLoader<T> userLoader) {
+        this(userLoader, DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public UserLoadBatcher(BatchUserLoader<T> userLoader, long windowMillis, int maxBatchSize) {
+        if (userLoader == null) throw new IllegalArgumentException("userLoader can not be null");
+        if (maxBatchSize <= 0) throw new IllegalArgumentException("maxBatchSize must be greater than 0");
+        this.userLoader = userLoader;
+        this.windowMillis = Math.max(0, windowMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "user-load-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), r -> {
+            Thread thread = new Thread(r, "user-load-batcher-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        this.loadExecutor = executor;
+    }
+
+    /**
+     * Enqueue a lookup
+     * @param username username
+     * @return the user, completed with null if the user is not in cache
+     */
+    public CompletableFuture<SessionUser<T>> load(String username) {
+        Pending<T> p = new Pending<T>(username);
+        queue.offer(p);
+        try {
+            if (pending.incrementAndGet() >= maxBatchSize) {
+                if (flushing.compareAndSet(false, true)) scheduler.execute(flushTask);
+            } else if (scheduled.compareAndSet(false, true)) {
+                scheduler.schedule(flushTask, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // shut down, load in the caller thread
+            flush();
+        }
+        return p.future;
+    }
+
+    private void flush() {
+        // reset before draining so that lookups enqueued from now on schedule a new flush
+        scheduled.set(false);
+        flushing.set(false);
+        Pending<T> p;
+        Map<String, List<CompletableFuture<SessionUser<T>>>> batch = new HashMap<String, List<CompletableFuture<SessionUser<T>>>>();
+        int size = 0;
+        while ((p = queue.poll()) != null) {
+            pending.decrementAndGet();
+            List<CompletableFuture<SessionUser<T>>> futures = batch.get(p.username);
+            if (futures == null) {
+                futures = new ArrayList<CompletableFuture<SessionUser<T>>>(1);
+                batch.put(p.username, futures);
+            }
+            futures.add(p.future);
+            if (++size >= maxBatchSize) {
+                dispatch(batch);
+                batch = new HashMap<String, List<CompletableFuture<SessionUser<T>>>>();
+                size = 0;
+            }
+        }
+        if (!batch.isEmpty()) dispatch(batch);
+    }
+
+    private void dispatch(final Map<String, List<CompletableFuture<SessionUser<T>>>> batch) {
+        try {
+            loadExecutor.execute(() -> load(batch));
+        } catch (RejectedExecutionException e) {
+            // shut down, load in the current thread
+            load(batch);
+        }
+    }
+
+    private void load(final Map<String, List<CompletableFuture<SessionUser<T>>>> batch) {
+        CompletableFuture<Map<String, SessionUser<T>>> result;
+        try {
+            result = userLoader.getUsersFromCacheAsync(batch.keySet());
+        } catch (Throwable e) {
+            result = new CompletableFuture<Map<String, SessionUser<T>>>();
+            result.completeExceptionally(e);
+        }
+        result.whenComplete((users, error) -> {
+            if (error != null) LOG.warn("Batch load users failed: size=" + batch.size(), error);
+            for (Map.Entry<String, List<CompletableFuture<SessionUser<T>>>> entry : batch.entrySet()) {
+                SessionUser<T> user = (error == null && users != null) ? users.get(entry.getKey()) : null;
+                for (CompletableFuture<SessionUser<T>> future : entry.getValue()) {
+                    if (error != null) future.completeExceptionally(error);
+                    else future.complete(user);
+                }
+            }
+        });
+    }
+
+    /**
+     * Flush pending lookups and stop the threads, batches already dispatched are still loaded
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        flush();
+        loadExecutor.shutdown();
+    }
+
+    /**
+     * Returns the max time a caller should wait for the result of {@link #load(String)}
+     * @return timeout in milliseconds
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        if (timeoutMillis <= 0) throw new IllegalArgumentException("timeoutMillis must be greater than 0");
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public BatchUserLoader<T> getUserLoader() {
+        return userLoader;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    private static final class Pending<T> {
+        final String username;
+        final CompletableFuture<SessionUser<T>> future = new CompletableFuture<SessionUser<T>>();
+
+        Pending(String username) {
+            this.username = username;
+        }
+    }
+}
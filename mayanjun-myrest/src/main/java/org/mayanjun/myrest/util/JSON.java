@@ -0,0 +1,365 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The shared JSON configuration of myrest.
+ * <p>
+ *     {@link ObjectWriter}s and {@link ObjectReader}s are built once per type and cached, so serializers are not
+ *     looked up on each call. Jackson recycles the byte and char buffers of generators and parsers per thread.
+ *     Bytecode acceleration by Blackbird or Afterburner can be enabled by {@link #accelerate()}
+ *     or the system property {@value #ACCELERATE_PROPERTY}, if one of the modules is on the classpath.
+ * </p>
+ * <p>
+ *     The byte oriented methods read and write UTF-8 directly without an intermediate String.
+ *     Like {@link #se(Object)} and {@link #de(String, Class)}, all methods log errors and return null
+ *     (or false, or an empty iterator) instead of throwing.
+ * </p>
+ * @author mayanjun
+ * @since 17/03/2017
+ */
+public class JSON {
+
+    private JSON() {
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(JSON.class);
+
+    public static final String ACCELERATE_PROPERTY = "myrest.json.accelerate";
+
+    private static final String ACCELERATION_MODULES[] = {
+            "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+            "com.fasterxml.jackson.module.afterburner.AfterburnerModule"
+    };
+
+    private static final ObjectMapper MAPPER;
+
+    private static volatile ClassValue<ObjectWriter> WRITERS;
+
+    private static volatile ClassValue<ObjectReader> READERS;
+
+    private static volatile ConcurrentHashMap<JavaType, ObjectReader> GENERIC_READERS;
+
+    static {
+        MAPPER = new ObjectMapper();
+        MAPPER.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        MAPPER.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        MAPPER.setDateFormat(new SimpleDateFormat("yyyy-MM-dd.HH:mm:ss.SSS"));
+        if (Boolean.getBoolean(ACCELERATE_PROPERTY)) accelerate();
+        resetCache();
+    }
+
+    public static String se(Object object) {
+        try {
+            if (object == null) return MAPPER.writeValueAsString(null);
+            return writer(object.getClass()).writeValueAsString(object);
+        } catch (JsonProcessingException e) {
+            LOG.error("Serialize object error", e);
+        }
+        return null;
+    }
+
+    public static <T> T de(String json, Class<T> cls) {
+        try {
+            if (StringUtils.isBlank(json)) return null;
+            return reader(cls).readValue(json);
+        } catch (IOException e) {
+            LOG.error("Deserialize object error", e);
+        }
+        return null;
+    }
+
+    /**
+     * Serialize the object into UTF-8 bytes
+     * @param object object
+     * @return JSON bytes
+     */
+    public static byte[] seBytes(Object object) {
+        try {
+            if (object == null) return MAPPER.writeValueAsBytes(null);
+            return writer(object.getClass()).writeValueAsBytes(object);
+        } catch (JsonProcessingException e) {
+            LOG.error("Serialize object error", e);
+        }
+        return null;
+    }
+
+    /**
+     * Serialize the object into a heap buffer ready to be read
+     * @param object object
+     * @return JSON bytes
+     */
+    public static ByteBuffer seBuffer(Object object) {
+        byte bytes[] = seBytes(object);
+        return bytes == null ? null : ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Serialize the object into the stream as UTF-8. The stream is flushed but not closed
+     * @param object object
+     * @param out output stream
+     * @return true if succeeded
+     */
+    public static boolean se(Object object, OutputStream out) {
+        try {
+            ObjectWriter writer = object == null ? writer(Object.class) : writer(object.getClass());
+            JsonGenerator generator = MAPPER.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writer.writeValue(generator, object);
+            return true;
+        } catch (IOException e) {
+            LOG.error("Serialize object error", e);
+        }
+        return false;
+    }
+
+    public static <T> T de(byte[] json, Class<T> cls) {
+        if (json == null) return null;
+        return de(json, 0, json.length, cls);
+    }
+
+    public static <T> T de(byte[] json, int offset, int length, Class<T> cls) {
+        try {
+            if (json == null || length == 0) return null;
+            return reader(cls).readValue(json, offset, length);
+        } catch (IOException e) {
+            LOG.error("Deserialize object error", e);
+        }
+        return null;
+    }
+
+    /**
+     * Deserialize the remaining bytes of the buffer, the position of the buffer is not changed
+     * @param json JSON bytes
+     * @param cls type
+     * @param <T> type
+     * @return object
+     */
+    public static <T> T de(ByteBuffer json, Class<T> cls) {
+        if (json == null || !json.hasRemaining()) return null;
+        if (json.hasArray()) return de(json.array(), json.arrayOffset() + json.position(), json.remaining(), cls);
+        try {
+            return reader(cls).readValue(new ByteBufferBackedInputStream(json.duplicate()));
+        } catch (IOException e) {
+            LOG.error("Deserialize object error", e);
+        }
+        return null;
+    }
+
+    /**
+     * Deserialize from the stream. The stream is not closed
+     * @param in input stream
+     * @param cls type
+     * @param <T> type
+     * @return object
+     */
+    public static <T> T de(InputStream in, Class<T> cls) {
+        try {
+            if (in == null) return null;
+            return reader(cls).readValue(parser(in));
+        } catch (IOException e) {
+            LOG.error("Deserialize object error", e);
+        }
+        return null;
+    }
+
+    private static JsonParser parser(InputStream in) throws IOException {
+        JsonParser parser = MAPPER.getFactory().createParser(in);
+        parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        return parser;
+    }
+
+    public static <T> T de(String json, TypeReference<T> type) {
+        return de(json, MAPPER.getTypeFactory().constructType(type));
+    }
+
+    public static <T> T de(String json, JavaType type) {
+        try {
+            if (StringUtils.isBlank(json)) return null;
+            return reader(type).readValue(json);
+        } catch (IOException e) {
+            LOG.error("Deserialize object error", e);
+        }
+        return null;
+    }
+
+    public static <T> T de(byte[] json, TypeReference<T> type) {
+        return de(json, MAPPER.getTypeFactory().constructType(type));
+    }
+
+    public static <T> T de(byte[] json, JavaType type) {
+        try {
+            if (json == null || json.length == 0) return null;
+            return reader(type).readValue(json);
+        } catch (IOException e) {
+            LOG.error("Deserialize object error", e);
+        }
+        return null;
+    }
+
+    public static <T> T de(InputStream in, TypeReference<T> type) {
+        return de(in, MAPPER.getTypeFactory().constructType(type));
+    }
+
+    public static <T> T de(InputStream in, JavaType type) {
+        try {
+            if (in == null) return null;
+            return reader(type).readValue(parser(in));
+        } catch (IOException e) {
+            LOG.error("Deserialize object error", e);
+        }
+        return null;
+    }
+
+    /**
+     * Read the elements of a JSON array (or a sequence of root values) one by one, so that a large payload
+     * is not loaded fully in memory. Close the iterator to close the stream
+     * @param in input stream
+     * @param cls element type
+     * @param <T> element type
+     * @return iterator of the elements, empty if failed
+     */
+    public static <T> MappingIterator<T> iterate(InputStream in, Class<T> cls) {
+        try {
+            if (in != null) return reader(cls).readValues(in);
+        } catch (IOException e) {
+            LOG.error("Deserialize object error", e);
+        }
+        return MappingIterator.emptyIterator();
+    }
+
+    public static <T> MappingIterator<T> iterate(InputStream in, JavaType type) {
+        try {
+            if (in != null) return reader(type).readValues(in);
+        } catch (IOException e) {
+            LOG.error("Deserialize object error", e);
+        }
+        return MappingIterator.emptyIterator();
+    }
+
+    /**
+     * Returns the cached writer of the type
+     * @param type type of the values to write
+     * @return writer
+     */
+    public static ObjectWriter writer(Class<?> type) {
+        return WRITERS.get(type);
+    }
+
+    /**
+     * Returns the cached reader of the type
+     * @param type type of the values to read
+     * @return reader
+     */
+    public static ObjectReader reader(Class<?> type) {
+        return READERS.get(type);
+    }
+
+    /**
+     * Returns the cached reader of the generic type
+     * @param type type of the values to read
+     * @return reader
+     */
+    public static ObjectReader reader(JavaType type) {
+        ConcurrentHashMap<JavaType, ObjectReader> readers = GENERIC_READERS;
+        ObjectReader reader = readers.get(type);
+        if (reader == null) {
+            reader = MAPPER.readerFor(type);
+            ObjectReader prev = readers.putIfAbsent(type, reader);
+            if (prev != null) reader = prev;
+        }
+        return reader;
+    }
+
+    /**
+     * Register Blackbird or Afterburner, whichever is found first on the classpath. Call it at startup
+     * because serializers already built are not accelerated
+     * @return true if a module is registered
+     */
+    public static synchronized boolean accelerate() {
+        for (String name : ACCELERATION_MODULES) {
+            try {
+                Class<?> cls = Class.forName(name, true, JSON.class.getClassLoader());
+                registerModule((Module) cls.newInstance());
+                LOG.info("JSON acceleration enabled: {}", name);
+                return true;
+            } catch (ClassNotFoundException e) {
+                // try next
+            } catch (Throwable e) {
+                LOG.warn("Can not enable JSON acceleration: " + name, e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Register a module to the shared mapper, cached writers and readers are rebuilt
+     * @param module module
+     */
+    public static synchronized void registerModule(Module module) {
+        MAPPER.registerModule(module);
+        resetCache();
+    }
+
+    private static void resetCache() {
+        WRITERS = new ClassValue<ObjectWriter>() {
+            @Override
+            protected ObjectWriter computeValue(Class<?> type) {
+                return MAPPER.writerFor(type);
+            }
+        };
+        READERS = new ClassValue<ObjectReader>() {
+            @Override
+            protected ObjectReader computeValue(Class<?> type) {
+                return MAPPER.readerFor(type);
+            }
+        };
+        GENERIC_READERS = new ConcurrentHashMap<JavaType, ObjectReader>();
+    }
+
+    /**
+     * Returns the shared mapper, do not change its configuration after it is used
+     * @return mapper
+     */
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+}
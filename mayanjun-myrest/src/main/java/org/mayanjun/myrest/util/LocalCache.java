@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small bounded in-process cache with size and TTL based eviction.
+ * <p>
+ *     Reads are lock-free. When the cache grows beyond its maximum size one writer
+ *     trims it back to 3/4 of the maximum, dropping expired entries first and then the least recently accessed ones.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class LocalCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<V>> entries;
+
+    private final int maximumSize;
+
+    private final long expireMillis;
+
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param maximumSize max entries kept in this cache, must be greater than 0
+     * @param expireMillis time to live of an entry after it is put, 0 or negative means never expires
+     */
+    public LocalCache(int maximumSize, long expireMillis) {
+        if (maximumSize <= 0) throw new IllegalArgumentException("maximumSize must be greater than 0");
+        this.maximumSize = maximumSize;
+        this.expireMillis = expireMillis;
+        this.entries = new ConcurrentHashMap<K, Entry<V>>(Math.min(maximumSize, 1024));
+    }
+
+    /**
+     * Returns the cached value or null if absent or expired
+     * @param key key
+     * @return cached value
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (entry.isExpired(now)) {
+            entries.remove(key, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+        entry.accessTime = now;
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        long now = System.currentTimeMillis();
+        long expireAt = expireMillis > 0 ? now + expireMillis : Long.MAX_VALUE;
+        entries.put(key, new Entry<V>(value, expireAt, now));
+        if (entries.size() > maximumSize) evict(now);
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) return;
+        try {
+            int target = maximumSize - (maximumSize >> 2);
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().getValue().isExpired(now)) {
+                    it.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+
+            int overflow = entries.size() - target;
+            if (overflow <= 0) return;
+
+            long accessTimes[] = new long[entries.size()];
+            int n = 0;
+            for (Entry<V> e : entries.values()) {
+                if (n == accessTimes.length) break;
+                accessTimes[n++] = e.accessTime;
+            }
+            // the map may have been cleared concurrently since it was sized
+            if (n == 0) return;
+            overflow = Math.min(overflow, n);
+            Arrays.sort(accessTimes, 0, n);
+            long cutoff = accessTimes[overflow - 1];
+
+            it = entries.entrySet().iterator();
+            while (it.hasNext() && overflow > 0) {
+                if (it.next().getValue().accessTime <= cutoff) {
+                    it.remove();
+                    evictions.incrementAndGet();
+                    overflow--;
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getExpireMillis() {
+        return expireMillis;
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "LocalCache{size=" + size() + ", hits=" + hitCount() + ", misses=" + missCount() + ", evictions=" + evictionCount() + "}";
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expireAt;
+        volatile long accessTime;
+
+        Entry(V value, long expireAt, long accessTime) {
+            this.value = value;
+            this.expireAt = expireAt;
+            this.accessTime = accessTime;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+    }
+}
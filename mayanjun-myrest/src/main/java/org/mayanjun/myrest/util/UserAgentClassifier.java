@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.util;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Classify the platform of a user agent in one pass.
+ * <p>
+ *     All keywords are compiled into an Aho-Corasick automaton over lower-cased ASCII, the result is a bitmask of
+ *     {@link #APPLE}, {@link #IOS}, {@link #ANDROID}, {@link #WINDOWS_PHONE} and {@link #MOBILE}.
+ *     Results are memoized by user agent and kept in a request attribute.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public final class UserAgentClassifier {
+
+    public static final int APPLE = 1;
+    public static final int IOS = 1 << 1;
+    public static final int ANDROID = 1 << 2;
+    public static final int WINDOWS_PHONE = 1 << 3;
+    public static final int MOBILE = 1 << 4;
+
+    public static final String USER_AGENT_HEADER = "user-agent";
+
+    /**
+     * Request attribute key of the classify result
+     */
+    public static final String REQUEST_ATTR_PLATFORM = UserAgentClassifier.class.getName() + ".PLATFORM";
+
+    private static final int ALPHABET = 128;
+    private static final int MAX_CACHED_LENGTH = 1024;
+
+    private static final String KEYWORDS[] = {"macintosh", "iphone", "ipad", "ipod", "ios", "android", "windows phone"};
+    private static final int KEYWORD_MASKS[] = {APPLE, APPLE | IOS, APPLE | IOS, APPLE | IOS, APPLE | IOS, ANDROID, WINDOWS_PHONE};
+
+    private static final int TRANSITIONS[][];
+    private static final int OUTPUTS[];
+
+    private static final LocalCache<String, Integer> CACHE = new LocalCache<String, Integer>(1024, 0);
+
+    static {
+        // build trie
+        List<int[]> gotos = new ArrayList<int[]>();
+        List<Integer> outputs = new ArrayList<Integer>();
+        gotos.add(newState());
+        outputs.add(0);
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            int state = 0;
+            for (char c : KEYWORDS[i].toCharArray()) {
+                if (gotos.get(state)[c] < 0) {
+                    gotos.get(state)[c] = gotos.size();
+                    gotos.add(newState());
+                    outputs.add(0);
+                }
+                state = gotos.get(state)[c];
+            }
+            outputs.set(state, outputs.get(state) | KEYWORD_MASKS[i]);
+        }
+
+        // turn the trie into a DFA by following failure links in BFS order
+        int n = gotos.size();
+        int transitions[][] = gotos.toArray(new int[n][]);
+        int out[] = new int[n];
+        int fail[] = new int[n];
+        for (int i = 0; i < n; i++) out[i] = outputs.get(i);
+
+        Queue<Integer> queue = new ArrayDeque<Integer>();
+        for (int c = 0; c < ALPHABET; c++) {
+            if (transitions[0][c] < 0) {
+                transitions[0][c] = 0;
+            } else {
+                fail[transitions[0][c]] = 0;
+                queue.add(transitions[0][c]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            out[state] |= out[fail[state]];
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[state][c];
+                if (next < 0) {
+                    transitions[state][c] = transitions[fail[state]][c];
+                } else {
+                    fail[next] = transitions[fail[state]][c];
+                    queue.add(next);
+                }
+            }
+        }
+        TRANSITIONS = transitions;
+        OUTPUTS = out;
+    }
+
+    private UserAgentClassifier() {
+    }
+
+    private static int[] newState() {
+        int state[] = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    /**
+     * Classify the user agent of the request, the result is kept in request attribute {@link #REQUEST_ATTR_PLATFORM}
+     * @param request request
+     * @return platform bitmask
+     */
+    public static int classify(HttpServletRequest request) {
+        Object platform = request.getAttribute(REQUEST_ATTR_PLATFORM);
+        if (platform instanceof Integer) return (Integer) platform;
+        int result = classify(request.getHeader(USER_AGENT_HEADER));
+        request.setAttribute(REQUEST_ATTR_PLATFORM, result);
+        return result;
+    }
+
+    /**
+     * Classify the user agent, results of recently seen user agents are memoized
+     * @param userAgent user agent
+     * @return platform bitmask
+     */
+    public static int classify(String userAgent) {
+        if (userAgent == null || userAgent.isEmpty()) return 0;
+        if (userAgent.length() > MAX_CACHED_LENGTH) return scan(userAgent);
+
+        Integer platform = CACHE.get(userAgent);
+        if (platform == null) {
+            platform = scan(userAgent);
+            CACHE.put(userAgent, platform);
+        }
+        return platform;
+    }
+
+    /**
+     * Classify the user agent without memoization. Keywords are matched case-insensitively in ASCII
+     * @param userAgent user agent
+     * @return platform bitmask
+     */
+    public static int scan(String userAgent) {
+        if (userAgent == null) return 0;
+        int state = 0;
+        int mask = 0;
+        for (int i = 0, len = userAgent.length(); i < len; i++) {
+            char c = userAgent.charAt(i);
+            if (c >= ALPHABET) {
+                state = 0;
+                continue;
+            }
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            state = TRANSITIONS[state][c];
+            mask |= OUTPUTS[state];
+        }
+        if ((mask & (IOS | ANDROID | WINDOWS_PHONE)) != 0) mask |= MOBILE;
+        return mask;
+    }
+
+    public static boolean is(int platform, int flag) {
+        return (platform & flag) != 0;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.util;
+
+/**
+ * 64-bit xxHash, a fast non-cryptographic hash used to build ETags.
+ * Use {@link #hash(byte[], int, int)} for a byte array or an instance to hash data while it is being written.
+ * Instances are not thread safe.
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public final class XxHash64 {
+
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    private final long seed;
+    private final byte buffer[] = new byte[32];
+    private int buffered;
+    private long length;
+    private long v1, v2, v3, v4;
+
+    public XxHash64() {
+        this(0);
+    }
+
+    public XxHash64(long seed) {
+        this.seed = seed;
+        reset();
+    }
+
+    public static long hash(byte data[]) {
+        return hash(data, 0, data.length, 0);
+    }
+
+    public static long hash(byte data[], int offset, int length) {
+        return hash(data, offset, length, 0);
+    }
+
+    public static long hash(byte data[], int offset, int length, long seed) {
+        int p = offset;
+        int end = offset + length;
+        long h;
+        if (length >= 32) {
+            long a = seed + P1 + P2, b = seed + P2, c = seed, d = seed - P1;
+            int limit = end - 32;
+            do {
+                a = round(a, getLong(data, p));
+                b = round(b, getLong(data, p + 8));
+                c = round(c, getLong(data, p + 16));
+                d = round(d, getLong(data, p + 24));
+                p += 32;
+            } while (p <= limit);
+            h = converge(a, b, c, d);
+        } else {
+            h = seed + P5;
+        }
+        h += length;
+        return finish(h, data, p, end);
+    }
+
+    public XxHash64 update(int b) {
+        buffer[buffered++] = (byte) b;
+        length++;
+        if (buffered == 32) {
+            consumeBuffer();
+        }
+        return this;
+    }
+
+    public XxHash64 update(byte data[], int offset, int len) {
+        length += len;
+        int p = offset;
+        int end = offset + len;
+        if (buffered > 0) {
+            int n = Math.min(32 - buffered, len);
+            System.arraycopy(data, p, buffer, buffered, n);
+            buffered += n;
+            p += n;
+            if (buffered < 32) return this;
+            consumeBuffer();
+        }
+        for (int limit = end - 32; p <= limit; p += 32) {
+            v1 = round(v1, getLong(data, p));
+            v2 = round(v2, getLong(data, p + 8));
+            v3 = round(v3, getLong(data, p + 16));
+            v4 = round(v4, getLong(data, p + 24));
+        }
+        if (p < end) {
+            System.arraycopy(data, p, buffer, 0, end - p);
+            buffered = end - p;
+        }
+        return this;
+    }
+
+    /**
+     * Returns the hash of the data updated so far, this instance can still be updated
+     * @return hash
+     */
+    public long getValue() {
+        long h = length >= 32 ? converge(v1, v2, v3, v4) : seed + P5;
+        h += length;
+        return finish(h, buffer, 0, buffered);
+    }
+
+    public XxHash64 reset() {
+        v1 = seed + P1 + P2;
+        v2 = seed + P2;
+        v3 = seed;
+        v4 = seed - P1;
+        buffered = 0;
+        length = 0;
+        return this;
+    }
+
+    /**
+     * Returns the hash as 16 lower case hex digits
+     * @param hash hash
+     * @return hex string
+     */
+    public static String toHex(long hash) {
+        String hex = Long.toHexString(hash);
+        if (hex.length() == 16) return hex;
+        StringBuilder sb = new StringBuilder(16);
+        for (int i = hex.length(); i < 16; i++) sb.append('0');
+        return sb.append(hex).toString();
+    }
+
+    private void consumeBuffer() {
+        v1 = round(v1, getLong(buffer, 0));
+        v2 = round(v2, getLong(buffer, 8));
+        v3 = round(v3, getLong(buffer, 16));
+        v4 = round(v4, getLong(buffer, 24));
+        buffered = 0;
+    }
+
+    private static long finish(long h, byte data[], int p, int end) {
+        for (; p + 8 <= end; p += 8) {
+            h ^= round(0, getLong(data, p));
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+        }
+        if (p + 4 <= end) {
+            h ^= (getInt(data, p) & 0xFFFFFFFFL) * P1;
+            h = Long.rotateLeft(h, 23) * P2 + P3;
+            p += 4;
+        }
+        for (; p < end; p++) {
+            h ^= (data[p] & 0xFF) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+        }
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private static long converge(long a, long b, long c, long d) {
+        long h = Long.rotateLeft(a, 1) + Long.rotateLeft(b, 7) + Long.rotateLeft(c, 12) + Long.rotateLeft(d, 18);
+        h = merge(h, a);
+        h = merge(h, b);
+        h = merge(h, c);
+        return merge(h, d);
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long merge(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * P1 + P4;
+    }
+
+    private static long getLong(byte b[], int i) {
+        return (b[i] & 0xFFL)
+                | (b[i + 1] & 0xFFL) << 8
+                | (b[i + 2] & 0xFFL) << 16
+                | (b[i + 3] & 0xFFL) << 24
+                | (b[i + 4] & 0xFFL) << 32
+                | (b[i + 5] & 0xFFL) << 40
+                | (b[i + 6] & 0xFFL) << 48
+                | (b[i + 7] & 0xFFL) << 56;
+    }
+
+    private static int getInt(byte b[], int i) {
+        return (b[i] & 0xFF)
+                | (b[i + 1] & 0xFF) << 8
+                | (b[i + 2] & 0xFF) << 16
+                | (b[i + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.view;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compress data written to it once the data exceeds the threshold, the gzip framing is written by this stream.
+ * {@link #finish()} must be called to complete the body and {@link #release()} to return the deflater.
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+final class CompressingOutputStream extends OutputStream {
+
+	private static final byte GZIP_HEADER[] = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+	private final OutputStream target;
+	private final HttpServletResponse response;
+	private final Compression.Encoding encoding;
+	private final int threshold;
+
+	private byte pending[];
+	private int pendingCount;
+
+	private Deflater deflater;
+	private byte buffer[];
+	private CRC32 crc;
+
+	private long in;
+	private long out;
+	private boolean finished;
+
+	/**
+	 * Constructor
+	 * @param target target stream
+	 * @param response response to set Content-Encoding and Content-Length on, may be null
+	 * @param encoding encoding
+	 * @param threshold data smaller than this is not compressed
+	 */
+	CompressingOutputStream(OutputStream target, HttpServletResponse response, Compression.Encoding encoding, int threshold) {
+		this.target = target;
+		this.response = response;
+		this.encoding = encoding;
+		this.threshold = threshold;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[]{(byte) b}, 0, 1);
+	}
+
+	@Override
+	public void write(byte b[], int off, int len) throws IOException {
+		if (finished) throw new IOException("Stream finished");
+		in += len;
+		if (deflater != null) {
+			deflate(b, off, len);
+			return;
+		}
+		if (pendingCount + len < threshold) {
+			if (pending == null) pending = new byte[threshold];
+			System.arraycopy(b, off, pending, pendingCount, len);
+			pendingCount += len;
+			return;
+		}
+		start();
+		if (pendingCount > 0) deflate(pending, 0, pendingCount);
+		deflate(b, off, len);
+	}
+
+	private void start() throws IOException {
+		if (response != null) response.setHeader(Compression.CONTENT_ENCODING, encoding.getToken());
+		deflater = Compression.borrow(encoding);
+		buffer = Compression.buffer();
+		if (encoding == Compression.Encoding.GZIP) {
+			crc = new CRC32();
+			target.write(GZIP_HEADER);
+			out += GZIP_HEADER.length;
+		}
+	}
+
+	private void deflate(byte b[], int off, int len) throws IOException {
+		if (crc != null) crc.update(b, off, len);
+		deflater.setInput(b, off, len);
+		while (!deflater.needsInput()) drain();
+	}
+
+	private void drain() throws IOException {
+		int n = deflater.deflate(buffer, 0, buffer.length);
+		if (n > 0) {
+			target.write(buffer, 0, n);
+			out += n;
+		}
+	}
+
+	/**
+	 * Complete the body, the target stream is flushed but not closed
+	 */
+	public void finish() throws IOException {
+		if (finished) return;
+		finished = true;
+		if (deflater == null) {
+			if (response != null) response.setContentLength(pendingCount);
+			if (pendingCount > 0) target.write(pending, 0, pendingCount);
+			out += pendingCount;
+		} else {
+			deflater.finish();
+			while (!deflater.finished()) drain();
+			if (crc != null) {
+				byte trailer[] = new byte[8];
+				writeInt(trailer, 0, (int) crc.getValue());
+				writeInt(trailer, 4, (int) in);
+				target.write(trailer);
+				out += trailer.length;
+			}
+		}
+		target.flush();
+	}
+
+	long getBytesIn() {
+		return in;
+	}
+
+	long getBytesOut() {
+		return out;
+	}
+
+	/**
+	 * Return the deflater to the pool, call it in a finally block
+	 */
+	public void release() {
+		if (deflater != null) {
+			Compression.release(deflater);
+			deflater = null;
+			buffer = null;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		// compressed data is flushed on finish, flushing a partial deflate block hurts the ratio
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			finish();
+		} finally {
+			release();
+		}
+	}
+
+	private static void writeInt(byte b[], int off, int v) {
+		b[off] = (byte) v;
+		b[off + 1] = (byte) (v >>> 8);
+		b[off + 2] = (byte) (v >>> 16);
+		b[off + 3] = (byte) (v >>> 24);
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.view;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+/**
+ * Response compression of the views.
+ * <p>
+ *     The encoding is negotiated from Accept-Encoding, gzip is preferred over deflate. Bodies smaller than the threshold
+ *     are sent as is. Deflaters are pooled per thread, so compressing a response does not allocate native memory.
+ *     Total bytes before and after compression are counted for all views.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public final class Compression {
+
+	public static final int DEFAULT_THRESHOLD = 1024;
+
+	static final String CONTENT_ENCODING = "Content-Encoding";
+	static final String ACCEPT_ENCODING = "Accept-Encoding";
+	static final String VARY = "Vary";
+
+	private static final LongAdder BYTES_IN = new LongAdder();
+	private static final LongAdder BYTES_OUT = new LongAdder();
+
+	private static final ThreadLocal<Deflaters> DEFLATERS = new ThreadLocal<Deflaters>() {
+		@Override
+		protected Deflaters initialValue() {
+			return new Deflaters();
+		}
+	};
+
+	private Compression() {
+	}
+
+	public enum Encoding {
+		GZIP("gzip"), DEFLATE("deflate");
+
+		private final String token;
+
+		Encoding(String token) {
+			this.token = token;
+		}
+
+		public String getToken() {
+			return token;
+		}
+	}
+
+	/**
+	 * Returns the preferred encoding accepted by the request and adds Vary: Accept-Encoding to the response
+	 * @param request request
+	 * @param response response
+	 * @return encoding, null means identity
+	 */
+	static Encoding negotiate(HttpServletRequest request, HttpServletResponse response) {
+		response.addHeader(VARY, ACCEPT_ENCODING);
+		return negotiate(request.getHeader(ACCEPT_ENCODING));
+	}
+
+	/**
+	 * Returns the preferred encoding of the Accept-Encoding header
+	 * @param acceptEncoding header value
+	 * @return encoding, null means identity
+	 */
+	public static Encoding negotiate(String acceptEncoding) {
+		if (acceptEncoding == null || acceptEncoding.isEmpty()) return null;
+		float gzip = -1, deflate = -1, any = -1;
+		int length = acceptEncoding.length();
+		int start = 0;
+		while (start < length) {
+			int end = acceptEncoding.indexOf(',', start);
+			if (end < 0) end = length;
+			int semicolon = acceptEncoding.indexOf(';', start);
+			int nameEnd = semicolon >= 0 && semicolon < end ? semicolon : end;
+			String name = acceptEncoding.substring(start, nameEnd).trim();
+			float q = nameEnd < end ? quality(acceptEncoding.substring(nameEnd + 1, end)) : 1;
+			if ("gzip".equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) gzip = q;
+			else if ("deflate".equalsIgnoreCase(name)) deflate = q;
+			else if ("*".equals(name)) any = q;
+			start = end + 1;
+		}
+		if (gzip < 0) gzip = any;
+		if (deflate < 0) deflate = any;
+		if (gzip > 0 && gzip >= deflate) return Encoding.GZIP;
+		if (deflate > 0) return Encoding.DEFLATE;
+		return null;
+	}
+
+	private static float quality(String params) {
+		for (String param : params.split(";")) {
+			param = param.trim();
+			if (param.startsWith("q=") || param.startsWith("Q=")) {
+				try {
+					return Float.parseFloat(param.substring(2).trim());
+				} catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+
+	/**
+	 * Compress the data in one shot
+	 * @param data data
+	 * @param encoding encoding
+	 * @return compressed data
+	 */
+	public static byte[] compress(byte data[], Encoding encoding) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+		CompressingOutputStream stream = new CompressingOutputStream(out, null, encoding, 0);
+		try {
+			stream.write(data, 0, data.length);
+			stream.finish();
+		} catch (IOException e) {
+			// never thrown by ByteArrayOutputStream
+			throw new IllegalStateException(e);
+		} finally {
+			stream.release();
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Write a buffered body with Content-Length, compressed if the encoding is not null and the body is not smaller than the threshold
+	 * @param response response
+	 * @param body body
+	 * @param encoding negotiated encoding, null means identity
+	 * @param threshold compression threshold
+	 */
+	static void write(HttpServletResponse response, byte body[], Encoding encoding, int threshold) throws IOException {
+		byte data[] = body;
+		if (encoding != null && body.length >= threshold) {
+			data = compress(body, encoding);
+			response.setHeader(CONTENT_ENCODING, encoding.getToken());
+		}
+		response.setContentLength(data.length);
+		OutputStream out = response.getOutputStream();
+		out.write(data);
+		out.flush();
+		count(body.length, data.length);
+	}
+
+	/**
+	 * Returns the total bytes passed to the views before compression
+	 * @return bytes
+	 */
+	public static long getBytesIn() {
+		return BYTES_IN.sum();
+	}
+
+	/**
+	 * Returns the total bytes written by the views after compression
+	 * @return bytes
+	 */
+	public static long getBytesOut() {
+		return BYTES_OUT.sum();
+	}
+
+	public static void resetCounters() {
+		BYTES_IN.reset();
+		BYTES_OUT.reset();
+	}
+
+	static void count(long in, long out) {
+		BYTES_IN.add(in);
+		BYTES_OUT.add(out);
+	}
+
+	static Deflater borrow(Encoding encoding) {
+		Deflaters deflaters = DEFLATERS.get();
+		boolean nowrap = encoding == Encoding.GZIP;
+		if (deflaters.inUse) return new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+		deflaters.inUse = true;
+		return nowrap ? deflaters.gzip : deflaters.zlib;
+	}
+
+	static void release(Deflater deflater) {
+		Deflaters deflaters = DEFLATERS.get();
+		if (deflater == deflaters.gzip || deflater == deflaters.zlib) {
+			deflater.reset();
+			deflaters.inUse = false;
+		} else {
+			deflater.end();
+		}
+	}
+
+	static byte[] buffer() {
+		return DEFLATERS.get().buffer;
+	}
+
+	private static final class Deflaters {
+		final Deflater gzip = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		final Deflater zlib = new Deflater(Deflater.DEFAULT_COMPRESSION, false);
+		final byte buffer[] = new byte[8192];
+		boolean inUse;
+	}
+}
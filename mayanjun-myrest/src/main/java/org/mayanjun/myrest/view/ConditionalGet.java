@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.view;
+
+import org.mayanjun.myrest.interceptor.Interceptor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Enable conditional GET on the annotated handler methods: the rendered body is hashed, an ETag is sent and
+ * requests carrying a matching If-None-Match get a 304 response without body.
+ * <div>
+ *     Applies to {@link JsonpView}, {@link PlainTextView} and {@link org.mayanjun.myrest.RestResponse} bodies written by
+ *     message converters if {@link ConditionalGetResponseBodyAdvice} is registered.
+ * </div>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Documented
+@Interceptor(ConditionalGetInterceptor.class)
+public @interface ConditionalGet {
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.view;
+
+import org.mayanjun.myrest.interceptor.AnnotationBasedHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Interceptor of {@link ConditionalGet}, it marks GET and HEAD requests so that the views hash the body
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class ConditionalGetInterceptor extends AnnotationBasedHandlerInterceptor {
+
+	/**
+	 * Request attribute key, present if the response should be conditional
+	 */
+	public static final String REQUEST_ATTR_CONDITIONAL_GET = ConditionalGetInterceptor.class.getName() + ".CONDITIONAL_GET";
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+		String method = request.getMethod();
+		if ("GET".equals(method) || "HEAD".equals(method)) {
+			request.setAttribute(REQUEST_ATTR_CONDITIONAL_GET, Boolean.TRUE);
+		}
+		return true;
+	}
+
+	/**
+	 * Whether the response of the request should be conditional
+	 * @param request request
+	 * @return true if the handler is annotated by {@link ConditionalGet} and the request is a GET or HEAD request
+	 */
+	public static boolean isConditionalGet(HttpServletRequest request) {
+		return request.getAttribute(REQUEST_ATTR_CONDITIONAL_GET) != null;
+	}
+
+	@Override
+	public int getOrder() {
+		return 0;
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.view;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mayanjun.myrest.RestResponse;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Conditional GET of {@link RestResponse} bodies returned by {@link ConditionalGet} handlers.
+ * <p>
+ *     The body is serialized once while it is hashed, then either a 304 is sent or the serialized JSON is attached
+ *     to the response by {@link RestResponse#preSerialize(com.fasterxml.jackson.core.ObjectCodec, byte[])}
+ *     so the message converter does not serialize it again.
+ * </p>
+ * <p>
+ *     The body is serialized by the mapper of the Jackson message converter Spring selected for the response, so it is
+ *     the same as without this advice. The mappers are collected from the {@link RequestMappingHandlerAdapter}s when the
+ *     context is refreshed. If the selected converter is not a Jackson converter of the context,
+ *     the body is left to the converter and no ETag is sent, unless a mapper is set explicitly.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+@ControllerAdvice
+public class ConditionalGetResponseBodyAdvice implements ResponseBodyAdvice<Object>, ApplicationListener<ContextRefreshedEvent> {
+
+	/**
+	 * Mapper used for all responses, null to use the mapper of the selected converter
+	 */
+	private volatile ObjectMapper objectMapper;
+
+	/**
+	 * Converter type -> mapper of the Jackson converters registered in the context
+	 */
+	private volatile Map<Class<?>, ObjectMapper> converterMappers = Collections.emptyMap();
+
+	public ConditionalGetResponseBodyAdvice() {
+	}
+
+	public ConditionalGetResponseBodyAdvice(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		initialize(event.getApplicationContext());
+	}
+
+	/**
+	 * Collect the mappers of the Jackson message converters of the context.
+	 * This is called automatically if this advice is registered as a bean of the context.
+	 * @param applicationContext the context contains the handler adapters
+	 */
+	public void initialize(ApplicationContext applicationContext) {
+		Map<Class<?>, ObjectMapper> mappers = new HashMap<Class<?>, ObjectMapper>();
+		Map<String, RequestMappingHandlerAdapter> adapters =
+				BeanFactoryUtils.beansOfTypeIncludingAncestors(applicationContext, RequestMappingHandlerAdapter.class);
+		for (RequestMappingHandlerAdapter adapter : adapters.values()) {
+			for (HttpMessageConverter<?> converter : adapter.getMessageConverters()) {
+				if (converter instanceof AbstractJackson2HttpMessageConverter && !mappers.containsKey(converter.getClass())) {
+					mappers.put(converter.getClass(), ((AbstractJackson2HttpMessageConverter) converter).getObjectMapper());
+				}
+			}
+		}
+		this.converterMappers = mappers;
+	}
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return true;
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+								  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+								  ServerHttpRequest request, ServerHttpResponse response) {
+		if (!(body instanceof RestResponse)
+				|| !(request instanceof ServletServerHttpRequest)
+				|| !(response instanceof ServletServerHttpResponse)) return body;
+
+		HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+		if (!ConditionalGetInterceptor.isConditionalGet(servletRequest)) return body;
+
+		ObjectMapper objectMapper = this.objectMapper;
+		if (objectMapper == null) objectMapper = converterMappers.get(selectedConverterType);
+		if (objectMapper == null) return body;
+
+		RestResponse restResponse = (RestResponse) body;
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+		HashingOutputStream stream = new HashingOutputStream(buffer);
+		try {
+			objectMapper.writeValue(stream, restResponse);
+		} catch (IOException e) {
+			// let the message converter report it
+			return body;
+		}
+
+		HttpServletResponse servletResponse = ((ServletServerHttpResponse) response).getServletResponse();
+		if (ETags.checkNotModified(servletRequest, servletResponse, ETags.weak(stream.hash()))) {
+			response.setStatusCode(HttpStatus.NOT_MODIFIED);
+			return null;
+		}
+		return restResponse.preSerialize(objectMapper, buffer.toByteArray());
+	}
+
+	public ObjectMapper getObjectMapper() {
+		return objectMapper;
+	}
+
+	/**
+	 * Set the mapper used for all responses instead of the mapper of the selected converter
+	 * @param objectMapper mapper, null to use the mapper of the selected converter
+	 */
+	public void setObjectMapper(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+}
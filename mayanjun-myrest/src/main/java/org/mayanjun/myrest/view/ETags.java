@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.view;
+
+import org.mayanjun.myrest.util.XxHash64;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * ETag helpers of the views
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+final class ETags {
+
+	static final String ETAG = "ETag";
+	static final String IF_NONE_MATCH = "If-None-Match";
+
+	private ETags() {
+	}
+
+	static String strong(long hash) {
+		return "\"" + XxHash64.toHex(hash) + "\"";
+	}
+
+	static String weak(long hash) {
+		return "W/" + strong(hash);
+	}
+
+	/**
+	 * Returns the tag of a content encoded variant, e.g. "abc" -&gt; "abc-gzip"
+	 */
+	static String variant(String etag, String suffix) {
+		return etag.substring(0, etag.length() - 1) + "-" + suffix + "\"";
+	}
+
+	/**
+	 * Whether the request is a GET or HEAD request carrying If-None-Match
+	 */
+	static boolean isConditional(HttpServletRequest request) {
+		String method = request.getMethod();
+		return ("GET".equals(method) || "HEAD".equals(method)) && request.getHeader(IF_NONE_MATCH) != null;
+	}
+
+	/**
+	 * Set the ETag header and the 304 status if the request is a conditional GET matching the tag
+	 * @return true if the body should not be written
+	 */
+	static boolean checkNotModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+		response.setHeader(ETAG, etag);
+		if (isConditional(request) && matches(request.getHeader(IF_NONE_MATCH), etag)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Weak comparison of If-None-Match and the entity tag
+	 * @param ifNoneMatch header value
+	 * @param etag entity tag
+	 * @return true if any tag of the header matches
+	 */
+	static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) return false;
+		String tag = opaque(etag);
+		int length = ifNoneMatch.length();
+		int start = 0;
+		while (start < length) {
+			int end = ifNoneMatch.indexOf(',', start);
+			if (end < 0) end = length;
+			String candidate = ifNoneMatch.substring(start, end).trim();
+			if ("*".equals(candidate) || opaque(candidate).equals(tag)) return true;
+			start = end + 1;
+		}
+		return false;
+	}
+
+	private static String opaque(String tag) {
+		return tag.startsWith("W/") ? tag.substring(2) : tag;
+	}
+}
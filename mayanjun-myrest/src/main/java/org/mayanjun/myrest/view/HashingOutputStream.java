@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.view;
+
+import org.mayanjun.myrest.util.XxHash64;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Hash data with {@link XxHash64} while passing it to the target stream
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+final class HashingOutputStream extends OutputStream {
+
+	private final OutputStream target;
+	private final XxHash64 hash = new XxHash64();
+
+	HashingOutputStream(OutputStream target) {
+		this.target = target;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		hash.update(b);
+		target.write(b);
+	}
+
+	@Override
+	public void write(byte b[], int off, int len) throws IOException {
+		hash.update(b, off, len);
+		target.write(b, off, len);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		target.flush();
+	}
+
+	long hash() {
+		return hash.getValue();
+	}
+}
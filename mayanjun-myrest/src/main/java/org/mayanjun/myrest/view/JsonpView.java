@@ -0,0 +1,193 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.view;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.commons.lang3.StringUtils;
+import org.mayanjun.myrest.RestResponse;
+import org.mayanjun.myrest.util.JSON;
+import org.springframework.web.servlet.view.AbstractView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * An implementation of {@link org.springframework.web.servlet.View} used to
+ * render an result data in JSONP protocol. The result is serialized by the shared configuration of {@link JSON}
+ *
+ * @author mayanjun
+ * @since 0.0.2(Jan 15, 2016)
+ * @see org.springframework.web.servlet.mvc.method.annotation.AbstractJsonpResponseBodyAdvice
+ * @see org.springframework.web.bind.annotation.ControllerAdvice
+ * @see org.springframework.web.bind.annotation.RestControllerAdvice
+ */
+public class JsonpView extends AbstractView {
+	
+	private static final String DEFAULT_CALLBACK = "callback";
+	private static final String MIME = "application/javascript";
+	private static final String DEFAULT_CHARSET = "utf-8";
+
+	private static final Pattern CALLBACK_PATTERN = Pattern.compile("^[a-zA-Z_$][a-zA-Z0-9_$]*$");
+	private static final String SUFFIX = ");";
+
+	private RestResponse result;
+	private String charset;
+
+	/**
+	 * Serialize the result into a buffer first so that Content-Length can be set, otherwise stream to response directly
+	 */
+	private boolean buffered;
+
+	private boolean compress;
+
+	private int compressThreshold = Compression.DEFAULT_THRESHOLD;
+
+	public JsonpView(RestResponse result) {
+		this(result, DEFAULT_CHARSET);
+	}
+
+	public JsonpView(RestResponse result, String charset) {
+		this.result = result;
+		this.setContentType(MIME + ";charset=" + charset);
+		this.charset = charset;
+	}
+	
+
+	public boolean isBuffered() {
+		return buffered;
+	}
+
+	public JsonpView setBuffered(boolean buffered) {
+		this.buffered = buffered;
+		return this;
+	}
+
+	public boolean isCompress() {
+		return compress;
+	}
+
+	/**
+	 * Compress the output with gzip or deflate if the client accepts
+	 * @param compress true to enable
+	 * @return this
+	 */
+	public JsonpView setCompress(boolean compress) {
+		this.compress = compress;
+		return this;
+	}
+
+	public int getCompressThreshold() {
+		return compressThreshold;
+	}
+
+	/**
+	 * Set the minimum size in bytes to compress
+	 * @param compressThreshold threshold
+	 * @return this
+	 */
+	public JsonpView setCompressThreshold(int compressThreshold) {
+		this.compressThreshold = compressThreshold;
+		return this;
+	}
+
+	@Override
+	protected void renderMergedOutputModel(Map<String, Object> model, HttpServletRequest request, HttpServletResponse response) throws Exception {
+		
+		String callback = request.getParameter("callback");
+		if(StringUtils.isBlank(callback) || !CALLBACK_PATTERN.matcher(callback).matches()) {
+			callback = DEFAULT_CALLBACK;
+		}
+
+		response.setCharacterEncoding(this.charset);
+		Compression.Encoding encoding = this.compress ? Compression.negotiate(request, response) : null;
+		if (ConditionalGetInterceptor.isConditionalGet(request)) {
+			renderConditional(callback, request, response, encoding);
+		} else if (this.buffered) {
+			ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+			writeJsonp(callback, stream);
+			if (encoding == null) {
+				this.writeToResponse(response, stream);
+			} else {
+				response.setContentType(getContentType());
+				Compression.write(response, stream.toByteArray(), encoding, this.compressThreshold);
+			}
+		} else {
+			response.setContentType(getContentType());
+			OutputStream out = response.getOutputStream();
+			if (encoding == null) {
+				writeJsonp(callback, out);
+				out.flush();
+			} else {
+				CompressingOutputStream stream = new CompressingOutputStream(out, response, encoding, this.compressThreshold);
+				try {
+					writeJsonp(callback, stream);
+					stream.finish();
+					Compression.count(stream.getBytesIn(), stream.getBytesOut());
+				} finally {
+					stream.release();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Buffer and hash the output, then respond 304 if the ETag matches
+	 */
+	private void renderConditional(String callback, HttpServletRequest request, HttpServletResponse response,
+								   Compression.Encoding encoding) throws IOException {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+		HashingOutputStream hashing = new HashingOutputStream(stream);
+		writeJsonp(callback, hashing);
+		if (ETags.checkNotModified(request, response, ETags.weak(hashing.hash()))) return;
+
+		if (encoding == null) {
+			this.writeToResponse(response, stream);
+		} else {
+			response.setContentType(getContentType());
+			Compression.write(response, stream.toByteArray(), encoding, this.compressThreshold);
+		}
+	}
+
+	private void writeJsonp(String callback, OutputStream out) throws IOException {
+		ObjectMapper mapper = JSON.mapper();
+		JsonGenerator generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+		// A workaround for JsonGenerators not applying serialization features
+		// https://github.com/FasterXML/jackson-databind/issues/12
+		if (mapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+			generator.useDefaultPrettyPrinter();
+		}
+
+		// callback only contains ASCII characters after validation
+		generator.writeRaw(callback);
+		generator.writeRaw('(');
+		if (this.result == null) generator.writeNull();
+		else JSON.writer(this.result.getClass()).writeValue(generator, this.result);
+		generator.writeRaw(SUFFIX);
+		// releases the recycled buffers of the generator, the target stream is left open
+		generator.close();
+	}
+}
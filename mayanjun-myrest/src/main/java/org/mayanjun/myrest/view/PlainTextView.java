@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.view;
+
+import org.mayanjun.core.Assert;
+import org.mayanjun.core.Status;
+import org.mayanjun.myrest.util.XxHash64;
+import org.springframework.web.servlet.view.AbstractView;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+/**
+ * Used to render plain text data
+ * <p>
+ *     The text is encoded once when it or the charset is set, and the bytes are written to the response directly.
+ *     If ETag is enabled a strong ETag of the content is sent and conditional GET requests get 304 responses.
+ *     If compression is enabled the compressed bytes of each encoding are cached as well.
+ *     Use {@link StreamingTextView} for large files.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.2(Jan 15, 2016)
+ */
+public class PlainTextView  extends AbstractView {
+	
+	private static final String MIME = "text/plain";
+	public static final String DEFAULT_CHARSET = "UTF-8";
+	
+	private String text;
+	private String charset;
+
+	/**
+	 * Encoded text
+	 */
+	private byte bytes[];
+
+	private boolean etagEnabled;
+
+	private String etag;
+
+	private boolean compress;
+
+	private int compressThreshold = Compression.DEFAULT_THRESHOLD;
+
+	/**
+	 * Compressed bodies filled on first use, volatile so that other threads see the contents of the arrays
+	 */
+	private volatile byte gzipBytes[];
+
+	private volatile byte deflateBytes[];
+
+	/**
+	 * Construct a PlainTextView with UTF-8 charset
+	 * @param text text to render
+     */
+	public PlainTextView(String text) {
+		this(text, DEFAULT_CHARSET);
+	}
+	
+	public PlainTextView(String text, String charset) {
+		this(text, charset, MIME);
+	}
+	
+	public PlainTextView(String text, String charset, String mime) {
+		this.charset = charset;
+		this.setText(text);
+		this.setContentType(mime + ";charset=" + this.charset);
+	}
+
+	public String getCharset() {
+		return charset;
+	}
+
+	public PlainTextView setCharset(String charset) {
+		this.charset = charset;
+		encode();
+		return this;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public PlainTextView setText(String text) {
+		Assert.notNull(text, Status.PARAM_ERROR);
+		this.text = text;
+		encode();
+		return this;
+	}
+
+	public boolean isEtagEnabled() {
+		return etagEnabled;
+	}
+
+	/**
+	 * Send an ETag of the content and respond 304 to matching conditional GET requests
+	 * @param etagEnabled true to enable
+	 * @return this
+	 */
+	public PlainTextView setEtagEnabled(boolean etagEnabled) {
+		this.etagEnabled = etagEnabled;
+		return this;
+	}
+
+	public boolean isCompress() {
+		return compress;
+	}
+
+	/**
+	 * Compress the text with gzip or deflate if the client accepts
+	 * @param compress true to enable
+	 * @return this
+	 */
+	public PlainTextView setCompress(boolean compress) {
+		this.compress = compress;
+		return this;
+	}
+
+	public int getCompressThreshold() {
+		return compressThreshold;
+	}
+
+	/**
+	 * Set the minimum size in bytes to compress
+	 * @param compressThreshold threshold
+	 * @return this
+	 */
+	public PlainTextView setCompressThreshold(int compressThreshold) {
+		this.compressThreshold = compressThreshold;
+		return this;
+	}
+
+	private void encode() {
+		this.bytes = this.text.getBytes(Charset.forName(this.charset));
+		this.etag = null;
+		this.gzipBytes = null;
+		this.deflateBytes = null;
+	}
+
+	private byte[] compressed(Compression.Encoding encoding) {
+		if (encoding == Compression.Encoding.GZIP) {
+			byte data[] = this.gzipBytes;
+			if (data == null) this.gzipBytes = data = Compression.compress(this.bytes, encoding);
+			return data;
+		}
+		byte data[] = this.deflateBytes;
+		if (data == null) this.deflateBytes = data = Compression.compress(this.bytes, encoding);
+		return data;
+	}
+
+	private String etag() {
+		String etag = this.etag;
+		if (etag == null) this.etag = etag = ETags.strong(XxHash64.hash(this.bytes));
+		return etag;
+	}
+
+	@Override
+	protected void renderMergedOutputModel(Map<String, Object> model, HttpServletRequest request, HttpServletResponse response) throws Exception {
+		response.setCharacterEncoding(this.charset);
+		response.setContentType(getContentType());
+
+		byte body[] = this.bytes;
+		Compression.Encoding encoding = null;
+		if (this.compress) {
+			encoding = Compression.negotiate(request, response);
+			if (encoding != null && body.length >= this.compressThreshold) body = compressed(encoding);
+			else encoding = null;
+		}
+		if (this.etagEnabled || ConditionalGetInterceptor.isConditionalGet(request)) {
+			String etag = encoding == null ? etag() : ETags.variant(etag(), encoding.getToken());
+			if (ETags.checkNotModified(request, response, etag)) return;
+		}
+
+		if (encoding != null) response.setHeader(Compression.CONTENT_ENCODING, encoding.getToken());
+		response.setContentLength(body.length);
+		ServletOutputStream out = response.getOutputStream();
+		out.write(body);
+		out.flush();
+		if (this.compress) Compression.count(this.bytes.length, body.length);
+	}
+}
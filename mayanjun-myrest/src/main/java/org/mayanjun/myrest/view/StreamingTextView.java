@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.view;
+
+import org.springframework.web.servlet.view.AbstractView;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+
+/**
+ * Used to render large text content without loading it into memory
+ * <p>
+ *     A {@link Path} is copied to the response as is with Content-Length and a weak ETag derived from its size
+ *     and modification time. A {@link Reader} is encoded with the charset while it is written and closed afterwards,
+ *     so a view backed by a reader can be rendered only once.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+public class StreamingTextView extends AbstractView {
+
+	private static final String MIME = "text/plain";
+	public static final String DEFAULT_CHARSET = PlainTextView.DEFAULT_CHARSET;
+	private static final int BUFFER_SIZE = 8192;
+
+	private final Path path;
+	private final Reader reader;
+	private final String charset;
+
+	private boolean etagEnabled = true;
+
+	/**
+	 * Construct a view of a UTF-8 text file
+	 * @param path text file
+	 */
+	public StreamingTextView(Path path) {
+		this(path, DEFAULT_CHARSET);
+	}
+
+	/**
+	 * Construct a view of a text file
+	 * @param path text file
+	 * @param charset charset of the file, the file is not transcoded
+	 */
+	public StreamingTextView(Path path, String charset) {
+		this(path, charset, MIME);
+	}
+
+	public StreamingTextView(Path path, String charset, String mime) {
+		this(path, null, charset, mime);
+	}
+
+	public StreamingTextView(Reader reader) {
+		this(reader, DEFAULT_CHARSET);
+	}
+
+	public StreamingTextView(Reader reader, String charset) {
+		this(reader, charset, MIME);
+	}
+
+	public StreamingTextView(Reader reader, String charset, String mime) {
+		this(null, reader, charset, mime);
+	}
+
+	private StreamingTextView(Path path, Reader reader, String charset, String mime) {
+		if (path == null && reader == null) throw new IllegalArgumentException("path or reader is required");
+		this.path = path;
+		this.reader = reader;
+		this.charset = charset;
+		this.setContentType(mime + ";charset=" + charset);
+	}
+
+	public String getCharset() {
+		return charset;
+	}
+
+	public boolean isEtagEnabled() {
+		return etagEnabled;
+	}
+
+	/**
+	 * Send a weak ETag of the file and respond 304 to matching conditional GET requests, enabled by default.
+	 * Not applicable to reader backed views
+	 * @param etagEnabled true to enable
+	 * @return this
+	 */
+	public StreamingTextView setEtagEnabled(boolean etagEnabled) {
+		this.etagEnabled = etagEnabled;
+		return this;
+	}
+
+	@Override
+	protected void renderMergedOutputModel(Map<String, Object> model, HttpServletRequest request, HttpServletResponse response) throws Exception {
+		response.setCharacterEncoding(this.charset);
+		response.setContentType(getContentType());
+		if (this.path != null) {
+			writePath(request, response);
+		} else {
+			writeReader(response);
+		}
+	}
+
+	private void writePath(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(this.path, BasicFileAttributes.class);
+		long size = attributes.size();
+		if (this.etagEnabled) {
+			long version = size * 31 + attributes.lastModifiedTime().toMillis();
+			if (ETags.checkNotModified(request, response, ETags.weak(version))) return;
+		}
+		response.setHeader("Content-Length", Long.toString(size));
+		ServletOutputStream out = response.getOutputStream();
+		Files.copy(this.path, out);
+		out.flush();
+	}
+
+	private void writeReader(HttpServletResponse response) throws IOException {
+		try (Reader in = this.reader) {
+			Writer out = new OutputStreamWriter(response.getOutputStream(), Charset.forName(this.charset));
+			char buffer[] = new char[BUFFER_SIZE];
+			int n;
+			while ((n = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, n);
+			}
+			out.flush();
+		}
+	}
+}
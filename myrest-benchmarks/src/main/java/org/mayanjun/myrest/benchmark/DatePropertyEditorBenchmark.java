@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.benchmark;
+
+import org.mayanjun.myrest.bind.DatePropertyEditor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link DatePropertyEditor} with the previous implementation across all supported formats
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatePropertyEditorBenchmark {
+
+    @Param({
+            "2018-07-19 12:30:45",
+            "2018-07-19 12:30",
+            "2018-07-19",
+            "2018/07/19 12:30:45",
+            "2018/07/19 12:30",
+            "2018/07/19",
+            "20180719 12:30:45",
+            "20180719"
+    })
+    public String text;
+
+    private DatePropertyEditor editor;
+
+    private LegacyDatePropertyEditor legacyEditor;
+
+    @Setup
+    public void setup() {
+        editor = new DatePropertyEditor();
+        legacyEditor = new LegacyDatePropertyEditor();
+    }
+
+    @Benchmark
+    public Object current() {
+        editor.setAsText(text);
+        return editor.getValue();
+    }
+
+    @Benchmark
+    public Object legacy() {
+        legacyEditor.setAsText(text);
+        return legacyEditor.getValue();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.benchmark;
+
+import org.mayanjun.core.ServiceException;
+import org.mayanjun.core.Status;
+import org.mayanjun.myrest.interceptor.ApplicationExceptionHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.validation.BindException;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ApplicationExceptionHandler#handleAllException(Throwable)} for each exception branch
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+
+    @Param({"service", "typeMismatch", "bind", "missingParameter", "scfService", "runtime", "unknown"})
+    public String branch;
+
+    private Throwable exception;
+
+    @Setup
+    public void setup() throws Exception {
+        if ("service".equals(branch)) {
+            exception = new ServiceException(Status.PARAM_ERROR, "bench");
+        } else if ("typeMismatch".equals(branch)) {
+            MethodParameter parameter = new MethodParameter(ExceptionHandlerBenchmark.class.getMethod("target", int.class), 0);
+            exception = new MethodArgumentTypeMismatchException("x", int.class, "id", parameter, null);
+        } else if ("bind".equals(branch)) {
+            BindException e = new BindException(new Object(), "form");
+            e.addError(new FieldError("form", "id", "bench"));
+            exception = e;
+        } else if ("missingParameter".equals(branch)) {
+            exception = new MissingServletRequestParameterException("id", "int");
+        } else if ("scfService".equals(branch)) {
+            exception = new RuntimeException(ServiceException.class.getName() + ": remote failure\n\tat remote.Service.call");
+        } else if ("runtime".equals(branch)) {
+            exception = new IllegalStateException("bench");
+        } else {
+            exception = new Exception("bench");
+        }
+    }
+
+    public void target(int id) {
+    }
+
+    @Benchmark
+    public Object handleAllException() {
+        return ApplicationExceptionHandler.handleAllException(exception);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.benchmark;
+
+import org.mayanjun.myrest.interceptor.AnnotationBasedProcessorInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * preHandle and afterCompletion of {@link AnnotationBasedProcessorInterceptor} with N annotated interceptors
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterceptorChainBenchmark {
+
+    @Param({"0", "1", "2", "4"})
+    public int interceptors;
+
+    private AnnotationBasedProcessorInterceptor processor;
+
+    private HandlerMethod handler;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() throws Exception {
+        processor = new AnnotationBasedProcessorInterceptor() {};
+        Controller controller = new Controller();
+        handler = new HandlerMethod(controller, Controller.class.getMethod("interceptors" + interceptors));
+        request = new MockHttpServletRequest("GET", "/bench");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public boolean preHandleAndAfterCompletion() throws Exception {
+        boolean ret = processor.preHandle(request, response, handler);
+        processor.afterCompletion(request, response, handler, null);
+        return ret;
+    }
+
+    public static class Controller {
+
+        public Object interceptors0() {
+            return null;
+        }
+
+        @BenchA
+        public Object interceptors1() {
+            return null;
+        }
+
+        @BenchA
+        @BenchB
+        public Object interceptors2() {
+            return null;
+        }
+
+        @BenchA
+        @BenchB
+        @BenchC
+        @BenchD
+        public Object interceptors4() {
+            return null;
+        }
+    }
+}
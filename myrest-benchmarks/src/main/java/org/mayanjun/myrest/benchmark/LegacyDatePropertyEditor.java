@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package org.mayanjun.myrest.bind;
+package org.mayanjun.myrest.benchmark;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -24,10 +24,9 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 
 /**
- * Convert an date string to {@link Date} if possible.
- * @author mayanjun
+ * Copy of the DatePropertyEditor before the single-pass parser, kept as the benchmark baseline
  */
-public class DatePropertyEditor extends PropertyEditorSupport {
+public class LegacyDatePropertyEditor extends PropertyEditorSupport {
 
 	private static final String DATE_FORMATS[] = {
 			"yyyy-MM-dd HH:mm:ss",
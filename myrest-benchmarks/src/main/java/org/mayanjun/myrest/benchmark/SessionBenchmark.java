@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.benchmark;
+
+import org.mayanjun.myrest.session.AESSession;
+import org.mayanjun.myrest.session.AbstractSession;
+import org.mayanjun.myrest.session.InMemoryUserLoader;
+import org.mayanjun.myrest.session.RSASession;
+import org.mayanjun.myrest.session.SessionUser;
+import org.mayanjun.myrest.session.UserLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.servlet.http.Cookie;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AbstractSession#getUser} with {@link AESSession} and {@link RSASession}.
+ * <p>
+ *     Token crypto is done with JDK ciphers of the same algorithms, so the benchmark does not need the key
+ *     material of a deployment. The token cache is switched on and off to show the cost of decryption,
+ *     the local user cache to show the cost of a {@link UserLoader} lookup.
+ * </p>
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionBenchmark {
+
+    private static final String USERNAME = "bench";
+
+    @Param({"AES", "RSA"})
+    public String algorithm;
+
+    @Param({"true", "false"})
+    public boolean tokenCache;
+
+    @Param({"true", "false"})
+    public boolean userCache;
+
+    private AbstractSession<Object> session;
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        InMemoryUserLoader<Object> loader = new InMemoryUserLoader<Object>();
+        if ("AES".equals(algorithm)) {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(128);
+            session = new BenchAESSession(generator.generateKey(), loader);
+        } else {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            session = new BenchRSASession(generator.generateKeyPair(), loader);
+        }
+        if (!tokenCache) session.setTokenCacheSize(0);
+        if (userCache) session.setUserCacheSize(1000);
+
+        SessionUser<Object> user = new SessionUser<Object>(USERNAME);
+        loader.setUserCache(user);
+        String token = session.encryptToken(USERNAME + ";" + user.getLastLoginTime());
+
+        request = new MockHttpServletRequest("GET", "/bench");
+        request.setCookies(new Cookie(session.getTokenName(), token));
+    }
+
+    @Benchmark
+    public Object getUser() {
+        try {
+            return session.getUser(request);
+        } finally {
+            session.clear();
+        }
+    }
+
+    private static String crypt(String transformation, int mode, Key key, String text) {
+        try {
+            Cipher cipher = Cipher.getInstance(transformation);
+            cipher.init(mode, key);
+            if (mode == Cipher.ENCRYPT_MODE) {
+                return Base64.getEncoder().encodeToString(cipher.doFinal(text.getBytes(StandardCharsets.UTF_8)));
+            }
+            return new String(cipher.doFinal(Base64.getDecoder().decode(text)), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static class BenchAESSession extends AESSession<Object> {
+
+        private final SecretKey key;
+
+        BenchAESSession(SecretKey key, UserLoader<Object> loader) {
+            this.key = key;
+            setUserLoader(loader);
+        }
+
+        @Override
+        public String encryptToken(String tokenPlain) {
+            return crypt("AES/ECB/PKCS5Padding", Cipher.ENCRYPT_MODE, key, tokenPlain);
+        }
+
+        @Override
+        public String decryptToken(String token) {
+            return crypt("AES/ECB/PKCS5Padding", Cipher.DECRYPT_MODE, key, token);
+        }
+    }
+
+    static class BenchRSASession extends RSASession<Object> {
+
+        private final KeyPair keyPair;
+
+        BenchRSASession(KeyPair keyPair, UserLoader<Object> loader) {
+            this.keyPair = keyPair;
+            setUserLoader(loader);
+        }
+
+        @Override
+        public String encryptToken(String tokenPlain) {
+            return crypt("RSA/ECB/PKCS1Padding", Cipher.ENCRYPT_MODE, keyPair.getPrivate(), tokenPlain);
+        }
+
+        @Override
+        public String decryptToken(String token) {
+            return crypt("RSA/ECB/PKCS1Padding", Cipher.DECRYPT_MODE, keyPair.getPublic(), token);
+        }
+    }
+}
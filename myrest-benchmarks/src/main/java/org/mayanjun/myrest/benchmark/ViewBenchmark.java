@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016-2018 mayanjun.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mayanjun.myrest.benchmark;
+
+import org.mayanjun.myrest.RestResponse;
+import org.mayanjun.myrest.view.JsonpView;
+import org.mayanjun.myrest.view.PlainTextView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of {@link JsonpView} and {@link PlainTextView} over mock servlet responses
+ *
+ * @author mayanjun
+ * @since 0.0.4
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewBenchmark {
+
+    private static final Map<String, Object> MODEL = Collections.emptyMap();
+
+    /**
+     * Number of items in the payload
+     */
+    @Param({"10", "10000"})
+    public int items;
+
+    private JsonpView jsonpView;
+
+    private JsonpView bufferedJsonpView;
+
+    private PlainTextView plainTextView;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        List<Item> data = new ArrayList<Item>(items);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < items; i++) {
+            Item item = new Item(i, "item-" + i);
+            data.add(item);
+            text.append(item.id).append(',').append(item.name).append('\n');
+        }
+        jsonpView = new JsonpView(RestResponse.ok(data));
+        bufferedJsonpView = new JsonpView(RestResponse.ok(data)).setBuffered(true);
+        plainTextView = new PlainTextView(text.toString());
+
+        request = new MockHttpServletRequest("GET", "/bench");
+        request.setParameter("callback", "cb");
+        response = new MockHttpServletResponse();
+    }
+
+    private MockHttpServletResponse reset() {
+        response.setCommitted(false);
+        response.reset();
+        return response;
+    }
+
+    @Benchmark
+    public int jsonp() throws Exception {
+        jsonpView.render(MODEL, request, reset());
+        return response.getContentAsByteArray().length;
+    }
+
+    @Benchmark
+    public int jsonpBuffered() throws Exception {
+        bufferedJsonpView.render(MODEL, request, reset());
+        return response.getContentAsByteArray().length;
+    }
+
+    @Benchmark
+    public int plainText() throws Exception {
+        plainTextView.render(MODEL, request, reset());
+        return response.getContentAsByteArray().length;
+    }
+
+    public static class Item {
+
+        private final int id;
+
+        private final String name;
+
+        Item(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}